@@ -1,5 +1,6 @@
 #!/usr/bin/env bash
 
 cd src;
-find . -name "*.java" | xargs javac -g -cp ".:$1";
-java -cp ".:$1" "com/swilkins/ScrabbleVisualizer/executable/$2";
\ No newline at end of file
+CLASSPATH=".:$1:../lib/asm-9.8.jar:../lib/asm-tree-9.8.jar";
+find . -name "*.java" | xargs javac -g -cp "$CLASSPATH";
+java -cp "$CLASSPATH" "com/swilkins/ScrabbleVisualizer/executable/$2";
@@ -0,0 +1,8 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+public enum ClassPrepareFilterMode {
+
+  EXACT,
+  PACKAGE_PREFIX
+
+}
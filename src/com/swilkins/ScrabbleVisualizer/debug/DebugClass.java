@@ -9,47 +9,34 @@ import java.util.*;
 
 public class DebugClass {
 
-  private final Class<?> clazz;
+  private final String className;
   private final DebugClassSource debugClassSource;
   private final LocationGetter locationGetter;
+  private final DebugClassSourceStore debugClassSourceStore;
   private final Map<Integer, BreakpointRequest> breakpointRequestMap = new HashMap<>();
-  private String cachedContentsString;
 
-  public DebugClass(Class<?> clazz, DebugClassSource debugClassSource, LocationGetter locationGetter) {
-    this.clazz = clazz;
+  public DebugClass(String className, DebugClassSource debugClassSource, LocationGetter locationGetter, DebugClassSourceStore debugClassSourceStore) {
+    this.className = className;
     this.debugClassSource = debugClassSource;
     this.locationGetter = locationGetter;
+    this.debugClassSourceStore = debugClassSourceStore;
   }
 
-  public Class<?> getClazz() {
-    return clazz;
-  }
-
-  public void setCached(boolean cached) {
-    if (cached) {
-      if (cachedContentsString == null) {
-        cachedContentsString = getContentsAsStringHelper();
-      }
-    } else {
-      this.cachedContentsString = null;
-    }
+  public String getClassName() {
+    return className;
   }
 
   public String getContentsAsString() {
-    if (this.cachedContentsString == null) {
-      return getContentsAsStringHelper();
-    }
-    return cachedContentsString;
-  }
-
-  private String getContentsAsStringHelper() {
     try {
+      if (debugClassSourceStore != null) {
+        return debugClassSourceStore.getContents(debugClassSource);
+      }
       return debugClassSource.getContentsAsString();
     } catch (Exception e) {
       String message = String.format(
               "%s representing %s failed to get contents as String. (%s)",
               getClass().getName(),
-              clazz.getName(),
+              className,
               e
       );
       throw new IllegalArgumentException(message);
@@ -81,7 +68,7 @@ public class DebugClass {
 
   @Override
   public String toString() {
-    return "DebugClass " + clazz.getName();
+    return "DebugClass " + className;
   }
 
 }
@@ -36,7 +36,7 @@ public class DebugClassLocation {
 
   @Override
   public String toString() {
-    return "DebugClassLocation{" + "debugClass=" + debugClass.getClazz().getName() +
+    return "DebugClassLocation{" + "debugClass=" + debugClass.getClassName() +
             ", lineNumber=" + lineNumber +
             '}';
   }
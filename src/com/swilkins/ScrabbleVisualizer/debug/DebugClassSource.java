@@ -1,11 +1,14 @@
 package com.swilkins.ScrabbleVisualizer.debug;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class DebugClassSource {
 
   private final List<Integer> compileTimeBreakpoints = new ArrayList<>();
+  private final Map<Integer, String> conditionalBreakpoints = new LinkedHashMap<>();
   private boolean cached;
 
   public DebugClassSource(boolean cached, int... compileTimeBreakpoints) {
@@ -30,6 +33,20 @@ public abstract class DebugClassSource {
     }
   }
 
+  // The condition is evaluated in the target, so the debugger only suspends when it holds. It
+  // replaces any compile time breakpoint on the same line, which would stop regardless.
+  public DebugClassSource addConditionalBreakpoint(int lineNumber, String condition) {
+    compileTimeBreakpoints.remove(Integer.valueOf(lineNumber));
+    conditionalBreakpoints.put(lineNumber, condition);
+    return this;
+  }
+
+  public Map<Integer, String> getConditionalBreakpoints() {
+    return conditionalBreakpoints;
+  }
+
+  // Cached sources are kept resident by the DebugClassSourceStore rather than competing
+  // for its byte budget, and are prefetched as soon as they are submitted
   public DebugClassSource setCached(boolean cached) {
     this.cached = cached;
     return this;
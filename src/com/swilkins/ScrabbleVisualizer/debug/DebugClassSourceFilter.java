@@ -1,29 +1,72 @@
 package com.swilkins.ScrabbleVisualizer.debug;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Pattern;
 
+// Filters sources by binary class name, so nothing has to be loaded to decide. A pattern is
+// either an exact name or a glob in which * matches any run of characters, e.g.
+// "com.swilkins.ScrabbleBase.Board.*".
 public class DebugClassSourceFilter {
 
   private final DebugClassSourceFilterType filterType;
-  private final Set<Class<?>> filteredClasses = new HashSet<>();
+  private final Set<String> patterns = new LinkedHashSet<>();
+  private final Set<String> names = new LinkedHashSet<>();
+  private Pattern globs;
 
   public DebugClassSourceFilter(DebugClassSourceFilterType filterType, Class<?>... filteredClasses) {
     this.filterType = filterType;
-    this.filteredClasses.addAll(Arrays.asList(filteredClasses));
+    for (Class<?> filteredClass : filteredClasses) {
+      addFilteredClass(filteredClass);
+    }
+  }
+
+  public DebugClassSourceFilter(DebugClassSourceFilterType filterType, String... patterns) {
+    this.filterType = filterType;
+    for (String pattern : patterns) {
+      addPattern(pattern);
+    }
   }
 
   public void addFilteredClass(Class<?> filteredClass) {
-    filteredClasses.add(filteredClass);
+    addPattern(filteredClass.getName());
+  }
+
+  public void addPattern(String pattern) {
+    if (!patterns.add(pattern)) {
+      return;
+    }
+    if (pattern.indexOf('*') < 0) {
+      names.add(pattern);
+      return;
+    }
+    StringBuilder regex = new StringBuilder(globs != null ? globs.pattern() + "|" : "");
+    String[] literals = pattern.split("\\*", -1);
+    for (int i = 0; i < literals.length; i++) {
+      if (i > 0) {
+        regex.append(".*");
+      }
+      if (!literals[i].isEmpty()) {
+        regex.append(Pattern.quote(literals[i]));
+      }
+    }
+    globs = Pattern.compile(regex.toString());
+  }
+
+  public boolean matches(String className) {
+    return names.contains(className) || (globs != null && globs.matcher(className).matches());
+  }
+
+  public boolean accepts(String className) {
+    return matches(className) == (filterType == DebugClassSourceFilterType.INCLUDE);
   }
 
   public DebugClassSourceFilterType getFilterType() {
     return filterType;
   }
 
-  public Set<Class<?>> getFilteredClasses() {
-    return filteredClasses;
+  public Set<String> getPatterns() {
+    return patterns;
   }
 
 }
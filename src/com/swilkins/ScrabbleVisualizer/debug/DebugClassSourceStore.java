@@ -0,0 +1,156 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Reads DebugClassSource contents on demand and keeps them in an LRU bounded by their
+// approximate size in bytes. Sources marked cached are kept resident instead. Contents can
+// be prefetched on a background thread, so neither the JDI thread nor the EDT has to wait
+// for a read that was foreseeable. Anything registered with addCloseable (an open JarFile,
+// say) is closed along with the store.
+public class DebugClassSourceStore implements Closeable {
+
+  public static final long DEFAULT_CAPACITY_BYTES = 8L * 1024 * 1024;
+
+  private final LinkedHashMap<DebugClassSource, String> evictable = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<DebugClassSource, String> resident = new HashMap<>();
+  private final Map<DebugClassSource, CompletableFuture<String>> loading = new ConcurrentHashMap<>();
+  private final List<Closeable> closeables = new ArrayList<>();
+  private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "DebugClassSourceStore prefetcher");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private long capacityBytes;
+  private long evictableBytes;
+
+  public DebugClassSourceStore() {
+    this(DEFAULT_CAPACITY_BYTES);
+  }
+
+  public DebugClassSourceStore(long capacityBytes) {
+    setCapacityBytes(capacityBytes);
+  }
+
+  public synchronized void setCapacityBytes(long capacityBytes) {
+    if (capacityBytes < 1) {
+      throw new IllegalArgumentException("Source store capacity must be positive.");
+    }
+    this.capacityBytes = capacityBytes;
+    evictToCapacity();
+  }
+
+  public synchronized long getCapacityBytes() {
+    return capacityBytes;
+  }
+
+  public synchronized long getEvictableBytes() {
+    return evictableBytes;
+  }
+
+  public void addCloseable(Closeable closeable) {
+    synchronized (closeables) {
+      closeables.add(closeable);
+    }
+  }
+
+  public String getContents(DebugClassSource debugClassSource) throws Exception {
+    String contents = lookup(debugClassSource);
+    if (contents != null) {
+      return contents;
+    }
+    CompletableFuture<String> inFlight = loading.get(debugClassSource);
+    if (inFlight != null) {
+      try {
+        return inFlight.join();
+      } catch (CompletionException e) {
+        // The prefetch failed; read again here so the caller sees the failure itself
+      }
+    }
+    contents = debugClassSource.getContentsAsString();
+    store(debugClassSource, contents);
+    return contents;
+  }
+
+  public void prefetch(DebugClassSource debugClassSource) {
+    if (lookup(debugClassSource) != null || prefetcher.isShutdown()) {
+      return;
+    }
+    CompletableFuture<String> future = new CompletableFuture<>();
+    if (loading.putIfAbsent(debugClassSource, future) != null) {
+      return;
+    }
+    try {
+      prefetcher.execute(() -> {
+        try {
+          String contents = debugClassSource.getContentsAsString();
+          store(debugClassSource, contents);
+          future.complete(contents);
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        } finally {
+          loading.remove(debugClassSource);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      loading.remove(debugClassSource);
+    }
+  }
+
+  private synchronized String lookup(DebugClassSource debugClassSource) {
+    String contents = resident.get(debugClassSource);
+    return contents != null ? contents : evictable.get(debugClassSource);
+  }
+
+  private synchronized void store(DebugClassSource debugClassSource, String contents) {
+    if (contents == null) {
+      return;
+    }
+    if (debugClassSource.isCached()) {
+      resident.put(debugClassSource, contents);
+      return;
+    }
+    String previous = evictable.put(debugClassSource, contents);
+    if (previous != null) {
+      evictableBytes -= sizeOf(previous);
+    }
+    evictableBytes += sizeOf(contents);
+    evictToCapacity();
+  }
+
+  private void evictToCapacity() {
+    Iterator<String> eldest = evictable.values().iterator();
+    // The entry just stored is kept even when it alone exceeds the capacity
+    while (evictableBytes > capacityBytes && evictable.size() > 1) {
+      evictableBytes -= sizeOf(eldest.next());
+      eldest.remove();
+    }
+  }
+
+  private static long sizeOf(String contents) {
+    return 2L * contents.length();
+  }
+
+  @Override
+  public void close() {
+    prefetcher.shutdownNow();
+    synchronized (closeables) {
+      for (Closeable closeable : closeables) {
+        try {
+          closeable.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+      closeables.clear();
+    }
+    synchronized (this) {
+      evictable.clear();
+      resident.clear();
+      evictableBytes = 0;
+    }
+  }
+
+}
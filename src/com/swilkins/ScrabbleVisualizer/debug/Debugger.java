@@ -5,94 +5,69 @@ import com.sun.jdi.connect.Connector;
 import com.sun.jdi.connect.LaunchingConnector;
 import com.sun.jdi.event.Event;
 import com.sun.jdi.event.*;
-import com.sun.jdi.request.BreakpointRequest;
-import com.sun.jdi.request.StepRequest;
-import com.swilkins.ScrabbleVisualizer.view.DebuggerWatchView;
-
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.ActionListener;
-import java.awt.event.WindowEvent;
+import com.swilkins.ScrabbleVisualizer.debug.agent.Agent;
+import com.swilkins.ScrabbleVisualizer.debug.agent.AgentJar;
+import com.swilkins.ScrabbleVisualizer.debug.interfaces.DebuggerListener;
+
 import java.io.IOException;
-import java.net.URL;
 import java.util.List;
 import java.util.*;
-import java.util.function.BiConsumer;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
-import static com.swilkins.ScrabbleVisualizer.debug.DebuggerControl.*;
-import static com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseDebugger.ICON_DIMENSION;
-import static com.swilkins.ScrabbleVisualizer.utility.Utilities.createImageIconFrom;
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.INVALIDATE_ON_RESUME;
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.WATCHPOINT_INVALIDATED;
 import static com.swilkins.ScrabbleVisualizer.utility.Utilities.inputStreamToString;
 
-public abstract class Debugger extends JFrame {
+public abstract class Debugger {
 
   protected VirtualMachine virtualMachine;
+  private GuardedEventQueue eventQueue;
 
-  private static final Dimension screenDimension;
-
-  static {
-    Dimension resolution = Toolkit.getDefaultToolkit().getScreenSize();
-    screenDimension = new Dimension(resolution.width, resolution.height - 60);
-  }
-
-  protected final DebuggerSourceView debuggerSourceView;
-  protected DebuggerWatchView debuggerWatchView = null;
   protected final DebuggerModel debuggerModel;
   private final Class<?> virtualMachineTargetClass;
   private final Object[] virtualMachineArguments;
-  private final Set<BiConsumer<Dimension, Integer>> onSplitResizeListeners = new HashSet<>();
+  private DebuggerListener debuggerListener;
 
-  protected final Map<Class<?>, Dereferencer> dereferencerMap = new HashMap<>();
   protected final Dereferencer toString = (object, thread) -> standardDereference(object, "toString", thread);
-
-  public Debugger(Class<?> virtualMachineTargetClass, DebuggerWatchView debuggerWatchView, Object... virtualMachineArguments) throws Exception {
-    super(virtualMachineTargetClass.getSimpleName());
+  protected final ReferenceLifecycleManager referenceLifecycleManager = new ReferenceLifecycleManager();
+  protected final DereferenceCache dereferenceCache = new DereferenceCache(DereferenceCache.DEFAULT_CAPACITY, referenceLifecycleManager);
+  protected final DereferenceBudget dereferenceBudget = new DereferenceBudget();
+  private final Map<ReferenceType, DereferenceCachePolicy> resolvedDereferenceCachePolicies = new HashMap<>();
+  private final ReferenceTypeResolver<Dereferencer> dereferencerResolver = new ReferenceTypeResolver<>(toString);
+  private final ReferenceTypeResolver<DereferenceCachePolicy> dereferenceCachePolicyResolver = new ReferenceTypeResolver<>(null);
+  private final MethodResolutionCache methodResolutionCache = new MethodResolutionCache();
+  private volatile long activeSuspension;
+  private Thread eventThread;
+  private DebugClassLocation lastSuspendedLocation;
+
+  public Debugger(Class<?> virtualMachineTargetClass, Object... virtualMachineArguments) throws Exception {
     this.virtualMachineTargetClass = virtualMachineTargetClass;
     this.virtualMachineArguments = virtualMachineArguments;
 
-    setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    setSize(screenDimension.width, screenDimension.height);
-    setResizable(false);
-
     debuggerModel = new DebuggerModel();
     configureDebuggerModel();
 
-    Dimension verticalScreenHalf = new Dimension(screenDimension.width, screenDimension.height / 2);
-
-    debuggerSourceView = new DebuggerSourceView();
-    debuggerSourceView.setDefaultControlActionListeners(getDefaultControlActionListeners());
-    debuggerSourceView.setPreferredSize(verticalScreenHalf);
-    configureDebuggerSourceView();
-
-    if (debuggerWatchView != null) {
-      this.debuggerWatchView = debuggerWatchView;
-      this.debuggerWatchView.setPreferredSize(verticalScreenHalf);
-      this.debuggerWatchView.initialize(verticalScreenHalf);
-      addOnSplitResizeListener(this.debuggerWatchView.onSplitResize());
-
-      JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, debuggerSourceView, debuggerWatchView);
-      splitPane.setDividerLocation(verticalScreenHalf.height);
-      splitPane.addPropertyChangeListener(e -> {
-        if (e.getPropertyName().equals("dividerLocation")) {
-          int location = (int) e.getNewValue();
-          onSplitResizeListeners.forEach(listener -> listener.accept(screenDimension, location));
-        }
-      });
+    registerDereferencer(AbstractCollection.class, new IncrementalCollectionDereferencer(this));
+    configureDereferencers();
+  }
 
-      getContentPane().add(splitPane);
-    } else {
-      getContentPane().add(debuggerSourceView);
-    }
+  public Class<?> getVirtualMachineTargetClass() {
+    return virtualMachineTargetClass;
+  }
 
-    dereferencerMap.put(AbstractCollection.class, (extendsAbstractCollection, thread) -> standardDereference(extendsAbstractCollection, "toArray", thread));
-    configureDereferencers();
+  public DebuggerModel getDebuggerModel() {
+    return debuggerModel;
+  }
 
-    start();
+  public void setDebuggerListener(DebuggerListener debuggerListener) {
+    this.debuggerListener = debuggerListener;
   }
 
-  private void start() {
+  public void start() {
+    if (debuggerListener == null) {
+      throw new IllegalStateException("A DebuggerListener must be set before the debugger is started.");
+    }
     LaunchingConnector launchingConnector = Bootstrap.virtualMachineManager().defaultConnector();
     Map<String, Connector.Argument> arguments = launchingConnector.defaultArguments();
     StringBuilder main = new StringBuilder(virtualMachineTargetClass.getName());
@@ -103,208 +78,211 @@ public abstract class Debugger extends JFrame {
 
     configureVirtualMachineLaunch(arguments);
 
-    new Thread(() -> {
+    eventThread = new Thread(() -> {
       try {
         virtualMachine = launchingConnector.launch(arguments);
+        eventQueue = new GuardedEventQueue(virtualMachine);
         debuggerModel.setEventRequestManager(virtualMachine.eventRequestManager());
         debuggerModel.submitDebugClassSources();
         debuggerModel.enableExceptionReporting(true, true);
 
-        debuggerSourceView.start();
+        debuggerListener.onVirtualMachineStart();
 
-        EventSet eventSet;
-        while ((eventSet = virtualMachine.eventQueue().remove()) != null) {
-          for (Event event : eventSet) {
+        GuardedEventQueue.GuardedEventSet eventSet;
+        while ((eventSet = eventQueue.remove()) != null) {
+          List<Event> events = eventSet.getEvents();
+          lastSuspendedLocation = null;
+          for (Event event : events) {
             if (event instanceof ClassPrepareEvent) {
               debuggerModel.createDebugClassFrom((ClassPrepareEvent) event);
             } else if (event instanceof ExceptionEvent) {
               ExceptionEvent exceptionEvent = (ExceptionEvent) event;
+              dereferenceBudget.reset();
               Object exception = dereferenceValue(exceptionEvent.thread(), exceptionEvent.exception());
-              debuggerSourceView.reportException(exception.toString(), DebuggerExceptionType.VIRTUAL_MACHINE);
+              debuggerListener.onVirtualMachineException(exception.toString());
+              referenceLifecycleManager.releaseSuspension();
+            } else if (event instanceof ModificationWatchpointEvent) {
+              dereferenceCache.invalidate(((ModificationWatchpointEvent) event).object().uniqueID());
             } else if (event instanceof LocatableEvent) {
-              onVirtualMachineLocatableEvent((LocatableEvent) event, eventSet.size());
+              onVirtualMachineLocatableEvent((LocatableEvent) event);
             }
           }
-          virtualMachine.resume();
+          if (eventSet.isResumeRequired()) {
+            virtualMachine.resume();
+          }
         }
       } catch (VMDisconnectedException e) {
         Process process = virtualMachine.process();
         String virtualMachineOut = inputStreamToString(process.getInputStream());
         String virtualMachineError = inputStreamToString(process.getErrorStream());
-        onVirtualMachineTermination(virtualMachineOut, virtualMachineError);
-        dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+        debuggerListener.onVirtualMachineTermination(virtualMachineOut, virtualMachineError);
+        debuggerModel.close();
       } catch (NoSuchMethodException e) {
         System.out.println(e.getMessage());
         System.exit(1);
       } catch (Exception e) {
         e.printStackTrace();
       }
-    }).start();
+    });
+    eventThread.start();
   }
 
-  protected abstract void configureDebuggerModel() throws IOException, ClassNotFoundException;
+  protected abstract void configureDebuggerModel() throws IOException;
 
-  protected void configureDebuggerSourceView() {
-    debuggerSourceView.setOptions(null);
+  protected abstract void configureDereferencers();
 
-    for (DebuggerControl control : DebuggerControl.values()) {
-      JButton controlButton = debuggerSourceView.addDefaultControlButton(control);
-      URL iconUrl = getClass().getResource(String.format("../resource/icons/%s.png", control.getLabel()));
-      controlButton.setIcon(createImageIconFrom(iconUrl, ICON_DIMENSION));
-      controlButton.setFocusPainted(false);
-    }
+  protected void registerDereferencer(Class<?> dereferencedClass, Dereferencer dereferencer) {
+    dereferencerResolver.register(dereferencedClass, dereferencer);
   }
 
-  protected abstract void configureDereferencers();
+  protected void registerDereferenceCachePolicy(Class<?> dereferencedClass, DereferenceCachePolicy policy) {
+    dereferenceCachePolicyResolver.register(dereferencedClass, policy);
+    resolvedDereferenceCachePolicies.clear();
+  }
 
   protected abstract void configureVirtualMachineLaunch(Map<String, Connector.Argument> arguments);
 
-  protected void onVirtualMachineLocatableEvent(LocatableEvent event, int eventSetSize) throws Exception {
-    DebugClassLocation location = debuggerModel.toDebugClassLocation(event.location());
-    if (location == null || (event instanceof BreakpointEvent && location.equals(debuggerSourceView.getProgrammaticSelectedLocation()))) {
-      return;
+  // Launch options that load the agent evaluating conditional breakpoints, or an empty String if there are none
+  protected String getConditionalBreakpointOptions() {
+    Map<String, Map<Integer, String>> conditionalBreakpoints = debuggerModel.getConditionalBreakpoints();
+    if (conditionalBreakpoints.isEmpty()) {
+      return "";
+    }
+    try {
+      return AgentJar.createLaunchOptions(conditionalBreakpoints);
+    } catch (IOException e) {
+      System.err.println(e);
+      return "";
     }
+  }
+
+  private void onVirtualMachineLocatableEvent(LocatableEvent event) throws Exception {
     ThreadReference thread = event.thread();
-    debuggerSourceView.setSelectedLocation(location);
-    System.out.println(location);
-    onVirtualMachineSuspension(location, dereferenceVariables(thread));
-    debuggerSourceView.setAllControlButtonsEnabled(true);
-    debuggerModel.awaitEventProcessingContinuation();
+    if (debuggerModel.isFastForwardRequest(event.request())) {
+      debuggerModel.cancelFastForward();
+    }
+    // A conditional breakpoint suspends in Agent.hit; what matters is the instrumented frame below it
+    int frameIndex = 0;
+    Location eventLocation = event.location();
+    if (event.request() != null && event.request().getProperty(DebuggerModel.CONDITIONAL_BREAKPOINT_HIT) != null) {
+      frameIndex = Agent.HIT_FRAME_DEPTH;
+      eventLocation = thread.frame(frameIndex).location();
+    }
+    DebugClassLocation location = debuggerModel.toDebugClassLocation(eventLocation);
+    // A step and a breakpoint landing on the same line arrive in one event set; only suspend once
+    if (location == null || (event instanceof BreakpointEvent && location.equals(lastSuspendedLocation))) {
+      return;
+    }
+    lastSuspendedLocation = location;
+    DebuggerSuspension suspension = new DebuggerSuspension(this, location, thread, getVisibleValues(thread, frameIndex), ++activeSuspension);
+    debuggerListener.onVirtualMachineSuspension(suspension);
+    activeSuspension++;
+    dereferenceCache.invalidateOnResume();
     debuggerModel.respondToRequestedStepRequestDepth(thread);
-    onVirtualMachineContinuation();
-    debuggerSourceView.setAllControlButtonsEnabled(false);
+    debuggerListener.onVirtualMachineContinuation();
+    referenceLifecycleManager.releaseSuspension();
   }
 
-  protected void onVirtualMachineSuspension(DebugClassLocation location, Map<String, Object> dereferencedVariables) {
-    if (debuggerWatchView != null) {
-      debuggerWatchView.setEnabled(true);
-      debuggerWatchView.updateFrom(location, dereferencedVariables);
-    }
+  boolean isActiveSuspension(long suspension) {
+    return suspension == activeSuspension;
   }
 
-  protected void onVirtualMachineContinuation() {
-    if (debuggerWatchView != null) {
-      debuggerWatchView.setEnabled(false);
-      debuggerWatchView.clean();
+  // Runs task, which dereferences, on the event thread and only while suspension is still held.
+  // Called from another thread, task is queued for the event thread; if suspension has been
+  // released by the time it would run, task is skipped and the result is otherwise.
+  <T> T whileSuspended(long suspension, Supplier<T> task, T otherwise) {
+    return whileSuspendedLater(suspension, task, otherwise).join();
+  }
+
+  // Never blocks the caller: off the event thread, the result completes once task has run there
+  <T> CompletableFuture<T> whileSuspendedLater(long suspension, Supplier<T> task, T otherwise) {
+    Supplier<T> guarded = () -> isActiveSuspension(suspension) ? task.get() : otherwise;
+    if (Thread.currentThread() == eventThread) {
+      return CompletableFuture.completedFuture(guarded.get());
     }
+    return debuggerModel.submitWhileAwaitingContinuation(guarded, otherwise);
+  }
+
+  private Dereferencer getDereferencerFor(ObjectReference objectReference) {
+    return dereferencerResolver.resolve(objectReference.referenceType());
   }
 
-  protected void onVirtualMachineTermination(String virtualMachineOut, String virtualMachineError) {
-    if (virtualMachineOut != null && !virtualMachineOut.isEmpty()) {
-      System.out.println(virtualMachineOut);
+  private DereferenceCachePolicy getDereferenceCachePolicyFor(ObjectReference objectReference) {
+    ReferenceType referenceType = objectReference.referenceType();
+    if (resolvedDereferenceCachePolicies.containsKey(referenceType)) {
+      return resolvedDereferenceCachePolicies.get(referenceType);
     }
-    if (virtualMachineError != null && !virtualMachineError.isEmpty()) {
-      System.out.println(virtualMachineError);
+    DereferenceCachePolicy policy = dereferenceCachePolicyResolver.resolve(referenceType);
+    if (policy == WATCHPOINT_INVALIDATED && !debuggerModel.createModificationWatchpointRequests(referenceType)) {
+      policy = INVALIDATE_ON_RESUME;
     }
+    resolvedDereferenceCachePolicies.put(referenceType, policy);
+    return policy;
   }
 
-  protected void addOnSplitResizeListener(BiConsumer<Dimension, Integer> onSplitResizeListener) {
-    if (onSplitResizeListener != null) {
-      onSplitResizeListeners.add(onSplitResizeListener);
-    }
+  protected Dereferencer fieldDereferencer(String... fieldNames) {
+    return new FieldDereferencer(this, null, fieldNames);
   }
 
-  private Map<DebuggerControl, ActionListener> getDefaultControlActionListeners() {
-    Map<DebuggerControl, ActionListener> defaultControlActionListeners = new LinkedHashMap<>();
-    defaultControlActionListeners.put(CONTINUE, e -> {
-      debuggerModel.setRequestedStepRequestDepth(null);
-      debuggerModel.resumeEventProcessing();
-    });
-    defaultControlActionListeners.put(STEP_OVER, e -> {
-      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_OVER);
-      debuggerModel.resumeEventProcessing();
-    });
-    defaultControlActionListeners.put(STEP_INTO, e -> {
-      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_INTO);
-      debuggerModel.resumeEventProcessing();
-    });
-    defaultControlActionListeners.put(STEP_OUT, e -> {
-      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_OUT);
-      debuggerModel.resumeEventProcessing();
-    });
-    defaultControlActionListeners.put(TOGGLE_BREAKPOINT, e -> {
-      try {
-        DebugClassLocation selectedLocation = debuggerSourceView.getSelectedLocation();
-        BreakpointRequest breakpointRequest = debuggerModel.getBreakpointRequestAt(selectedLocation);
-        if (breakpointRequest == null) {
-          debuggerModel.createBreakpointRequest(selectedLocation);
-        } else {
-          debuggerModel.setEventRequestEnabled(breakpointRequest, !breakpointRequest.isEnabled());
-        }
-        debuggerSourceView.repaint();
-      } catch (AbsentInformationException ex) {
-        debuggerSourceView.reportException(ex.toString(), DebuggerExceptionType.DEBUGGER);
-      }
-    });
-    defaultControlActionListeners.put(RECENTER, e -> {
-      DebugClassLocation location = debuggerSourceView.getProgrammaticSelectedLocation();
-      debuggerSourceView.setSelectedLocation(location);
-    });
-    return defaultControlActionListeners;
+  protected Dereferencer fieldDereferencer(Dereferencer fallback, String... fieldNames) {
+    return new FieldDereferencer(this, fallback, fieldNames);
   }
 
-  private Dereferencer getDereferencerFor(ObjectReference objectReference) {
-    Dereferencer dereferencer = toString;
+  protected Value invoke(ObjectReference object, ThreadReference thread, String toInvokeName, String signature, List<? extends Value> arguments) throws NoSuchMethodException {
+    ReferenceType referenceType = object.referenceType();
+    if (arguments == null) {
+      arguments = Collections.emptyList();
+    }
+    Method toInvoke = methodResolutionCache.resolve(referenceType, toInvokeName, signature, arguments.size());
+    if (toInvoke == null) {
+      throw illegalInvocation(referenceType, toInvokeName, signature, "Method does not exist");
+    }
+    boolean guarded = debuggerModel.getInvocationMode() == DebuggerInvocationMode.SINGLE_THREADED && eventQueue != null;
     try {
-      Class<?> clazz = Class.forName(objectReference.referenceType().name());
-      while (clazz != null) {
-        Dereferencer existing = dereferencerMap.get(clazz);
-        if (existing != null) {
-          dereferencer = existing;
-          break;
-        }
-        clazz = clazz.getSuperclass();
+      debuggerModel.prepareForInvocation();
+      if (guarded) {
+        eventQueue.beginInvocation(thread);
+      }
+      return object.invokeMethod(thread, toInvoke, arguments, debuggerModel.getInvocationOptions());
+    } catch (Exception e) {
+      throw illegalInvocation(referenceType, toInvokeName, signature, e.getMessage());
+    } finally {
+      if (guarded) {
+        eventQueue.endInvocation();
       }
-    } catch (ClassNotFoundException ignored) {
     }
-    return dereferencer;
   }
 
-  protected Value invoke(ObjectReference object, ThreadReference thread, String toInvokeName, String signature, List<? extends Value> arguments) throws NoSuchMethodException {
-    ReferenceType referenceType = object.referenceType();
-    List<Method> candidates;
-    if (signature != null) {
-      candidates = referenceType.methodsByName(toInvokeName, signature);
-    } else {
-      candidates = referenceType.methodsByName(toInvokeName);
-    }
-    Function<String, NoSuchMethodException> errorMessageBuilder = s -> new NoSuchMethodException(String.format(
+  private NoSuchMethodException illegalInvocation(ReferenceType referenceType, String toInvokeName, String signature, String reason) {
+    return new NoSuchMethodException(String.format(
             "Illegal method invocation in dereferencer: [%s (%s) invoked on %s]: %s.",
-            toInvokeName, signature, referenceType.name(), s
+            toInvokeName, signature, referenceType.name(), reason
     ));
-    if (candidates.isEmpty()) {
-      throw errorMessageBuilder.apply("Method does not exist");
-    }
+  }
+
+  private Map<String, Value> getVisibleValues(ThreadReference thread, int frameIndex) throws Exception {
+    StackFrame frame = thread.frame(frameIndex);
+    Map<String, Value> visibleValues = new HashMap<>();
     try {
-      if (arguments == null) {
-        arguments = Collections.emptyList();
+      for (Map.Entry<LocalVariable, Value> entry : frame.getValues(frame.visibleVariables()).entrySet()) {
+        visibleValues.put(entry.getKey().name(), entry.getValue());
       }
-      int argCount = arguments.size();
-      Method toInvoke = candidates.stream().filter(c -> {
-        try {
-          return c.arguments().size() == argCount;
-        } catch (AbsentInformationException e) {
-          return false;
-        }
-      }).collect(Collectors.toList()).get(0);
-      if (toInvoke == null) {
-        throw errorMessageBuilder.apply("Method does not exist");
-      }
-      return object.invokeMethod(thread, toInvoke, arguments, 0);
     } catch (Exception e) {
-      throw errorMessageBuilder.apply(e.getMessage());
+      System.err.println(e);
     }
+    return visibleValues;
   }
 
-  private Map<String, Object> dereferenceVariables(ThreadReference thread)
-          throws Exception {
-    StackFrame frame = thread.frame(0);
+  Map<String, Object> dereferenceVariables(ThreadReference thread, Map<String, Value> values) {
     Map<String, Object> dereferencedVariables = new HashMap<>();
+    if (values.isEmpty()) {
+      return dereferencedVariables;
+    }
     try {
-      Map<LocalVariable, Value> values = frame.getValues(frame.visibleVariables());
       debuggerModel.deadlockSafeInvoke(() -> {
-        for (Map.Entry<LocalVariable, Value> entry : values.entrySet()) {
-          dereferencedVariables.put(entry.getKey().name(), dereferenceValue(thread, entry.getValue()));
+        dereferenceBudget.reset();
+        for (Map.Entry<String, Value> entry : values.entrySet()) {
+          dereferencedVariables.put(entry.getKey(), dereferenceValue(thread, entry.getValue()));
         }
       });
     } catch (Exception e) {
@@ -313,27 +291,54 @@ public abstract class Debugger extends JFrame {
     return dereferencedVariables;
   }
 
+  public CompletableFuture<Object> expand(TruncatedValue truncatedValue) {
+    return whileSuspendedLater(truncatedValue.getSuspension(), () -> {
+      Object[] expanded = new Object[]{truncatedValue};
+      try {
+        debuggerModel.deadlockSafeInvoke(() -> {
+          dereferenceBudget.beginExpansion();
+          expanded[0] = dereferenceValue(truncatedValue.getThread(), truncatedValue.getValue());
+        });
+      } catch (Exception e) {
+        System.err.println(e);
+      }
+      return expanded[0];
+    }, (Object) truncatedValue);
+  }
+
   protected Object standardDereference(ObjectReference value, String toInvokeName, ThreadReference thread) throws NoSuchMethodException {
     return dereferenceValue(thread, invoke(value, thread, toInvokeName, null, null));
   }
 
   protected Object dereferenceValue(ThreadReference thread, Value value) throws NoSuchMethodException {
     if (value instanceof ObjectReference) {
-      ((ObjectReference) value).disableCollection();
+      referenceLifecycleManager.pin((ObjectReference) value);
     }
-    if (value instanceof ArrayReference) {
-      ArrayReference arrayReference = (ArrayReference) value;
-      int length = arrayReference.length();
-      Object[] collector = new Object[length];
-      for (int i = 0; i < length; i++) {
-        collector[i] = dereferenceValue(thread, arrayReference.getValue(i));
-      }
-      return collector;
-    } else if (value instanceof StringReference) {
+    if (value instanceof StringReference) {
       return ((StringReference) value).value();
     } else if (value instanceof ObjectReference) {
       ObjectReference objectReference = (ObjectReference) value;
-      return getDereferencerFor(objectReference).dereference(objectReference, thread);
+      DereferenceCachePolicy policy = null;
+      if (!(objectReference instanceof ArrayReference)) {
+        policy = getDereferenceCachePolicyFor(objectReference);
+        if (policy != null && dereferenceCache.contains(objectReference)) {
+          return dereferenceCache.dereference(objectReference, thread, policy, getDereferencerFor(objectReference));
+        }
+      }
+      TruncationReason truncationReason = dereferenceBudget.enter(objectReference);
+      if (truncationReason != null) {
+        dereferenceCache.onUncachedDereference();
+        return new TruncatedValue(objectReference, thread, truncationReason, activeSuspension);
+      }
+      try {
+        if (objectReference instanceof ArrayReference) {
+          dereferenceCache.onUncachedDereference();
+          return dereferenceArray(thread, (ArrayReference) objectReference);
+        }
+        return dereferenceCache.dereference(objectReference, thread, policy, getDereferencerFor(objectReference));
+      } finally {
+        dereferenceBudget.exit(objectReference);
+      }
     } else if (value instanceof PrimitiveValue) {
       PrimitiveValue primitiveValue = (PrimitiveValue) value;
       String subType = value.type().name();
@@ -365,4 +370,85 @@ public abstract class Debugger extends JFrame {
     return value;
   }
 
+  private Object dereferenceArray(ThreadReference thread, ArrayReference arrayReference) throws NoSuchMethodException {
+    int fullLength = arrayReference.length();
+    int length = Math.min(fullLength, dereferenceBudget.getElementLimit());
+    Object collector = dereferenceArrayElements(thread, arrayReference, length == fullLength ? arrayReference.getValues() : arrayReference.getValues(0, length));
+    if (length < fullLength) {
+      dereferenceCache.onUncachedDereference();
+      return new TruncatedValue(arrayReference, thread, TruncationReason.ELEMENTS, activeSuspension, collector, fullLength - length);
+    }
+    return collector;
+  }
+
+  private Object dereferenceArrayElements(ThreadReference thread, ArrayReference arrayReference, List<Value> values) throws NoSuchMethodException {
+    int length = values.size();
+    String componentTypeName = ((ArrayType) arrayReference.referenceType()).componentTypeName();
+    switch (componentTypeName) {
+      case "char": {
+        char[] collector = new char[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).charValue();
+        }
+        return collector;
+      }
+      case "int": {
+        int[] collector = new int[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).intValue();
+        }
+        return collector;
+      }
+      case "boolean": {
+        boolean[] collector = new boolean[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).booleanValue();
+        }
+        return collector;
+      }
+      case "byte": {
+        byte[] collector = new byte[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).byteValue();
+        }
+        return collector;
+      }
+      case "double": {
+        double[] collector = new double[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).doubleValue();
+        }
+        return collector;
+      }
+      case "float": {
+        float[] collector = new float[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).floatValue();
+        }
+        return collector;
+      }
+      case "long": {
+        long[] collector = new long[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).longValue();
+        }
+        return collector;
+      }
+      case "short": {
+        short[] collector = new short[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = ((PrimitiveValue) values.get(i)).shortValue();
+        }
+        return collector;
+      }
+      default: {
+        Object[] collector = new Object[length];
+        for (int i = 0; i < length; i++) {
+          collector[i] = dereferenceValue(thread, values.get(i));
+        }
+        return collector;
+      }
+    }
+  }
+
 }
\ No newline at end of file
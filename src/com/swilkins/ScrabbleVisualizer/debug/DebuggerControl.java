@@ -6,8 +6,14 @@ public enum DebuggerControl {
   STEP_OVER("Step Over"),
   STEP_INTO("Step Into"),
   STEP_OUT("Step Out"),
+  PLAY("Play"),
   TOGGLE_BREAKPOINT("Toggle Breakpoint"),
-  RECENTER("Recenter");
+  RECENTER("Recenter"),
+  RUN_TO_HIT("Run To Hit"),
+  RUN_TO_CONSTRUCTION("Run To Construction"),
+  STEP_BACK("Step Back"),
+  STEP_FORWARD("Step Forward"),
+  NEXT_HIT("Next Hit");
 
   private final String label;
 
@@ -0,0 +1,328 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.StepRequest;
+import com.swilkins.ScrabbleVisualizer.debug.interfaces.DebuggerListener;
+import com.swilkins.ScrabbleVisualizer.trace.TraceWriter;
+import com.swilkins.ScrabbleVisualizer.view.DebuggerWatchView;
+import com.swilkins.ScrabbleVisualizer.view.RenderPipeline;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static com.swilkins.ScrabbleVisualizer.debug.DebuggerControl.*;
+
+public class DebuggerFrame extends DebuggerViewFrame implements DebuggerListener {
+
+  protected final Debugger debugger;
+  protected final DebuggerModel debuggerModel;
+  protected final DebuggerSourceView debuggerSourceView;
+  protected DebuggerWatchView debuggerWatchView = null;
+  private volatile TraceWriter traceWriter = null;
+  private final RenderPipeline<RenderSnapshot> renderPipeline = new RenderPipeline<>(this::apply);
+  private RenderSnapshot.Frame publishedFrame = null;
+  private RenderSnapshot.Frame appliedFrame = null;
+  private boolean watchViewDirty = false;
+
+  private volatile boolean playing = false;
+  private int playbackStepsPerSecond = 20;
+  private int playbackFramesPerSecond = 5;
+  private int playbackStepRequestDepth = StepRequest.STEP_OVER;
+  private long lastPlaybackStep;
+  private long lastPlaybackFrame;
+
+  public DebuggerFrame(Debugger debugger, DebuggerWatchView debuggerWatchView) throws IOException {
+    this(debugger, debuggerWatchView, null);
+  }
+
+  // Every suspension is also saved to tracePath (if not null), for later replay in a TraceReplayFrame
+  public DebuggerFrame(Debugger debugger, DebuggerWatchView debuggerWatchView, Path tracePath) throws IOException {
+    super(debugger.getVirtualMachineTargetClass().getSimpleName());
+    this.debugger = debugger;
+    this.debuggerModel = debugger.getDebuggerModel();
+    if (tracePath != null) {
+      traceWriter = new TraceWriter(tracePath);
+      addWindowListener(new WindowAdapter() {
+        @Override
+        public void windowClosing(WindowEvent e) {
+          closeTraceWriter();
+        }
+      });
+    }
+
+    debuggerSourceView = new DebuggerSourceView();
+    debuggerSourceView.setDefaultControlActionListeners(getDefaultControlActionListeners());
+    debuggerSourceView.setPreferredSize(verticalScreenHalf);
+    configureDebuggerSourceView();
+
+    if (debuggerWatchView != null) {
+      this.debuggerWatchView = debuggerWatchView;
+      this.debuggerWatchView.setTruncatedValueExpander(debugger::expand);
+    }
+    layOutViews(debuggerSourceView, debuggerWatchView);
+
+    debugger.setDebuggerListener(this);
+    debugger.start();
+  }
+
+  protected void configureDebuggerSourceView() {
+    debuggerSourceView.setOptions(null);
+    debuggerSourceView.addDefaultControlButtons();
+  }
+
+  @Override
+  public void onVirtualMachineStart() {
+    SwingUtilities.invokeLater(debuggerSourceView::start);
+  }
+
+  @Override
+  public void onVirtualMachineSuspension(DebuggerSuspension suspension) {
+    Map<String, Object> recordedVariables = null;
+    if (traceWriter != null) {
+      recordedVariables = suspension.dereferenceVariables();
+      writeTraceStep(suspension.getLocation(), recordedVariables);
+    }
+    if (playing) {
+      // Steps between frames only pay for the location; nothing is dereferenced or repainted
+      long now = System.currentTimeMillis();
+      if (now - lastPlaybackFrame >= 1000 / playbackFramesPerSecond) {
+        lastPlaybackFrame = now;
+        render(suspension, recordedVariables);
+      }
+      awaitPlaybackStep();
+      if (playing) {
+        debuggerModel.setRequestedStepRequestDepth(playbackStepRequestDepth);
+        return;
+      }
+    }
+    // Rendered afresh even when playback just rendered this step, since what a playback frame
+    // defers cannot be dereferenced until the suspension is held
+    render(suspension, recordedVariables);
+    renderPipeline.publish(new RenderSnapshot(publishedFrame, EnumSet.allOf(DebuggerControl.class)));
+    debuggerModel.awaitEventProcessingContinuation();
+  }
+
+  private void render(DebuggerSuspension suspension, Map<String, Object> dereferencedVariables) {
+    DebugClassLocation location = suspension.getLocation();
+    Supplier<CompletableFuture<Map<String, Object>>> deferredVariables = null;
+    if (dereferencedVariables == null) {
+      Set<String> eagerVariableNames = getEagerVariableNames();
+      if (eagerVariableNames != null) {
+        Set<String> deferredVariableNames = new HashSet<>(suspension.getVariableNames());
+        deferredVariableNames.removeAll(eagerVariableNames);
+        if (!deferredVariableNames.isEmpty()) {
+          deferredVariables = () -> suspension.dereferenceVariablesLater(deferredVariableNames);
+        }
+      }
+      dereferencedVariables = suspension.dereferenceVariables(eagerVariableNames);
+    }
+    publishedFrame = new RenderSnapshot.Frame(location, dereferencedVariables, deferredVariables);
+    renderPipeline.publish(new RenderSnapshot(publishedFrame, playing ? EnumSet.of(PLAY) : EnumSet.noneOf(DebuggerControl.class)));
+  }
+
+  // Runs on the EDT, only ever for the latest snapshot
+  private void apply(RenderSnapshot snapshot) {
+    RenderSnapshot.Frame frame = snapshot.getFrame();
+    if (frame != appliedFrame) {
+      if (frame != null) {
+        debuggerSourceView.setSelectedLocation(frame.getLocation());
+      }
+      if (debuggerWatchView != null) {
+        if (watchViewDirty) {
+          debuggerWatchView.clean();
+          watchViewDirty = false;
+        }
+        debuggerWatchView.setEnabled(frame != null);
+        if (frame != null) {
+          debuggerWatchView.updateFrom(frame.getLocation(), frame.getDereferencedVariables(), frame.getDeferredVariables());
+          watchViewDirty = true;
+        }
+      }
+      appliedFrame = frame;
+    }
+    debuggerSourceView.setEnabledControlButtons(snapshot.getEnabledControls());
+  }
+
+  private void onDebuggerException(Exception e) {
+    SwingUtilities.invokeLater(() -> debuggerSourceView.reportException(e.toString(), DebuggerExceptionType.DEBUGGER));
+  }
+
+  private void awaitPlaybackStep() {
+    long remaining = lastPlaybackStep + 1000 / playbackStepsPerSecond - System.currentTimeMillis();
+    if (remaining > 0) {
+      try {
+        Thread.sleep(remaining);
+      } catch (InterruptedException e) {
+        e.printStackTrace();
+      }
+    }
+    lastPlaybackStep = System.currentTimeMillis();
+  }
+
+  public void setPlaybackStepsPerSecond(int playbackStepsPerSecond) {
+    this.playbackStepsPerSecond = Math.max(1, playbackStepsPerSecond);
+  }
+
+  public void setPlaybackFramesPerSecond(int playbackFramesPerSecond) {
+    this.playbackFramesPerSecond = Math.max(1, playbackFramesPerSecond);
+  }
+
+  public void setPlaybackStepRequestDepth(int playbackStepRequestDepth) {
+    this.playbackStepRequestDepth = playbackStepRequestDepth;
+  }
+
+  protected Set<String> getEagerVariableNames() {
+    if (debuggerWatchView == null || debuggerWatchView.isRawViewVisible()) {
+      return null;
+    }
+    return debuggerWatchView.getVariableDependencies();
+  }
+
+  @Override
+  public void onVirtualMachineContinuation() {
+    if (playing) {
+      // Leave the last frame up, and keep Play available to pause with
+      renderPipeline.publish(new RenderSnapshot(publishedFrame, EnumSet.of(PLAY)));
+      return;
+    }
+    publishedFrame = null;
+    renderPipeline.publish(new RenderSnapshot(null, EnumSet.noneOf(DebuggerControl.class)));
+  }
+
+  @Override
+  public void onVirtualMachineException(String exception) {
+    SwingUtilities.invokeLater(() -> debuggerSourceView.reportException(exception, DebuggerExceptionType.VIRTUAL_MACHINE));
+  }
+
+  @Override
+  public void onVirtualMachineTermination(String virtualMachineOut, String virtualMachineError) {
+    if (virtualMachineOut != null && !virtualMachineOut.isEmpty()) {
+      System.out.println(virtualMachineOut);
+    }
+    if (virtualMachineError != null && !virtualMachineError.isEmpty()) {
+      System.out.println(virtualMachineError);
+    }
+    closeTraceWriter();
+    dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING));
+  }
+
+  // Under the same lock as closeTraceWriter, which the EDT may call mid-step
+  private synchronized void writeTraceStep(DebugClassLocation location, Map<String, Object> variables) {
+    if (traceWriter != null) {
+      try {
+        traceWriter.write(location, variables);
+      } catch (IOException e) {
+        onDebuggerException(e);
+      }
+    }
+  }
+
+  private synchronized void closeTraceWriter() {
+    if (traceWriter != null) {
+      try {
+        traceWriter.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      traceWriter = null;
+    }
+  }
+
+  private Integer promptForCount(String message) {
+    String input = JOptionPane.showInputDialog(this, message, 1);
+    if (input == null) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(input.trim());
+    } catch (NumberFormatException e) {
+      debuggerSourceView.reportException(e.toString(), DebuggerExceptionType.DEBUGGER);
+      return null;
+    }
+  }
+
+  private Map<DebuggerControl, ActionListener> getDefaultControlActionListeners() {
+    Map<DebuggerControl, ActionListener> defaultControlActionListeners = new LinkedHashMap<>();
+    defaultControlActionListeners.put(CONTINUE, e -> {
+      debuggerModel.setRequestedStepRequestDepth(null);
+      debuggerModel.resumeEventProcessing();
+    });
+    defaultControlActionListeners.put(STEP_OVER, e -> {
+      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_OVER);
+      debuggerModel.resumeEventProcessing();
+    });
+    defaultControlActionListeners.put(STEP_INTO, e -> {
+      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_INTO);
+      debuggerModel.resumeEventProcessing();
+    });
+    defaultControlActionListeners.put(STEP_OUT, e -> {
+      debuggerModel.setRequestedStepRequestDepth(StepRequest.STEP_OUT);
+      debuggerModel.resumeEventProcessing();
+    });
+    defaultControlActionListeners.put(PLAY, e -> {
+      if (playing) {
+        playing = false;
+        return;
+      }
+      playing = true;
+      lastPlaybackStep = lastPlaybackFrame = 0;
+      debuggerModel.setRequestedStepRequestDepth(playbackStepRequestDepth);
+      debuggerModel.resumeEventProcessing();
+    });
+    defaultControlActionListeners.put(TOGGLE_BREAKPOINT, e -> {
+      try {
+        DebugClassLocation selectedLocation = debuggerSourceView.getSelectedLocation();
+        BreakpointRequest breakpointRequest = debuggerModel.getBreakpointRequestAt(selectedLocation);
+        if (breakpointRequest == null) {
+          debuggerModel.createBreakpointRequest(selectedLocation);
+        } else {
+          debuggerModel.setEventRequestEnabled(breakpointRequest, !breakpointRequest.isEnabled());
+        }
+        debuggerSourceView.repaint();
+      } catch (AbsentInformationException ex) {
+        debuggerSourceView.reportException(ex.toString(), DebuggerExceptionType.DEBUGGER);
+      }
+    });
+    defaultControlActionListeners.put(RECENTER, e -> {
+      DebugClassLocation location = debuggerSourceView.getProgrammaticSelectedLocation();
+      debuggerSourceView.setSelectedLocation(location);
+    });
+    defaultControlActionListeners.put(RUN_TO_HIT, e -> {
+      DebugClassLocation selectedLocation = debuggerSourceView.getSelectedLocation();
+      Integer count = promptForCount(String.format("Run until line %d has been hit how many more times?", selectedLocation.getLineNumber()));
+      if (count != null) {
+        try {
+          debuggerModel.runToHit(selectedLocation, count);
+          debuggerModel.resumeEventProcessing();
+        } catch (AbsentInformationException | IllegalArgumentException ex) {
+          debuggerSourceView.reportException(ex.toString(), DebuggerExceptionType.DEBUGGER);
+        }
+      }
+    });
+    Class<?> constructionTarget = debuggerModel.getConstructionTarget();
+    if (constructionTarget != null) {
+      defaultControlActionListeners.put(RUN_TO_CONSTRUCTION, e -> {
+        Integer count = promptForCount(String.format("Run until how many more %s instances have been constructed?", constructionTarget.getSimpleName()));
+        if (count != null) {
+          try {
+            debuggerModel.runToConstruction(count);
+            debuggerModel.resumeEventProcessing();
+          } catch (IllegalArgumentException ex) {
+            debuggerSourceView.reportException(ex.toString(), DebuggerExceptionType.DEBUGGER);
+          }
+        }
+      });
+    }
+    return defaultControlActionListeners;
+  }
+
+}
@@ -0,0 +1,8 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+public enum DebuggerInvocationMode {
+
+  REQUEST_TOGGLING,
+  SINGLE_THREADED
+
+}
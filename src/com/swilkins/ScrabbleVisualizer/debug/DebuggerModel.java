@@ -1,38 +1,62 @@
 package com.swilkins.ScrabbleVisualizer.debug;
 
 import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.Field;
 import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.event.ClassPrepareEvent;
 import com.sun.jdi.request.*;
+import com.swilkins.ScrabbleVisualizer.debug.agent.Agent;
 import com.swilkins.ScrabbleVisualizer.debug.interfaces.Invokable;
 import com.swilkins.ScrabbleVisualizer.utility.Utilities;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.sun.jdi.request.StepRequest.STEP_LINE;
 import static com.swilkins.ScrabbleVisualizer.utility.Utilities.inputStreamToString;
 
 public class DebuggerModel {
 
-  private final Map<Class<?>, DebugClassSource> debugClassSources = new LinkedHashMap<>();
-  private final Map<Class<?>, DebugClass> debugClasses = new LinkedHashMap<>();
+  public static final String CONDITIONAL_BREAKPOINT_HIT = "conditionalBreakpointHit";
+
+  // Keyed by binary class name, so registering a source never loads its class
+  private final Map<String, DebugClassSource> debugClassSources = new LinkedHashMap<>();
+  private final Map<String, DebugClass> debugClasses = new LinkedHashMap<>();
+  // Prepared types (nested and anonymous ones included) mapped to the DebugClass of their source
+  private final Map<ReferenceType, DebugClass> debugClassesByType = new HashMap<>();
+  private final Set<ReferenceType> unmappedTypes = new HashSet<>();
+  private final DebugClassSourceStore debugClassSourceStore = new DebugClassSourceStore();
   private static final String JAVA_SUFFIX = ".java";
   private String globalClassFilter = null;
   private EventRequestManager eventRequestManager;
   private final Map<EventRequest, Boolean> eventRequestStateMap = new HashMap<>();
+  private final Set<Field> modificationWatchedFields = new HashSet<>();
+  private BreakpointRequest conditionalBreakpointHitRequest;
+  private Class<?> constructionTarget;
+  private final List<BreakpointRequest> fastForwardRequests = new ArrayList<>();
+  private final List<BreakpointRequest> fastForwardSuspendedRequests = new ArrayList<>();
 
   private final Object eventProcessingControl = new Object();
+  private final Queue<SuspendedTask<?>> suspendedTasks = new ArrayDeque<>();
+  private boolean awaitingEventProcessingContinuation;
+  private boolean eventProcessingContinued;
   private final Object stepRequestControl = new Object();
   private final Object threadReferenceControl = new Object();
 
@@ -40,133 +64,233 @@ public class DebuggerModel {
   private Integer requestedStepRequestDepth;
   private final Map<Integer, StepRequest> stepRequestMap = new HashMap<>(3);
 
+  private DebuggerInvocationMode invocationMode = DebuggerInvocationMode.SINGLE_THREADED;
+  private ClassPrepareFilterMode classPrepareFilterMode = ClassPrepareFilterMode.EXACT;
   private boolean deadlockSafeInvoke;
+  private boolean eventRequestsDisabledForInvocation;
 
   public void setEventRequestManager(EventRequestManager eventRequestManager) {
     this.eventRequestManager = eventRequestManager;
   }
 
   public DebugClassSource addDebugClassSource(Class<?> clazz, DebugClassSource debugClassSource) {
-    debugClassSources.put(clazz, debugClassSource);
+    return addDebugClassSource(clazz.getName(), debugClassSource);
+  }
+
+  public DebugClassSource addDebugClassSource(String className, DebugClassSource debugClassSource) {
+    debugClassSources.put(className, debugClassSource);
     return debugClassSource;
   }
 
-  private Class<?> sourceToClass(String source) throws ClassNotFoundException {
+  private static String sourceToClassName(String source) {
     if (source.endsWith(JAVA_SUFFIX)) {
-      String entryClass = source.replace("/", ".").replace(JAVA_SUFFIX, "");
-      return Class.forName(entryClass);
+      return source.substring(0, source.length() - JAVA_SUFFIX.length()).replace('/', '.').replace(File.separatorChar, '.');
     }
     return null;
   }
 
-  public Class<?>[] getAllClasses() {
-    Class<?>[] representedClasses = new Class<?>[debugClassSources.size()];
-    int i = 0;
-    for (Map.Entry<Class<?>, DebugClassSource> debugClassSourceEntry : debugClassSources.entrySet()) {
-      representedClasses[i++] = debugClassSourceEntry.getKey();
-    }
-    Arrays.sort(representedClasses, Comparator.comparing(Class::getName));
-    return representedClasses;
+  public String[] getAllClassNames() {
+    String[] representedClassNames = debugClassSources.keySet().toArray(new String[0]);
+    Arrays.sort(representedClassNames);
+    return representedClassNames;
   }
 
-  public Set<Class<?>> addDebugClassSourcesFromJar(String jarPath, DebugClassSourceFilter filter) throws IOException, ClassNotFoundException {
+  public Set<String> addDebugClassSourcesFromJar(String jarPath, DebugClassSourceFilter filter) throws IOException {
     File file = new File(jarPath);
     JarFile jarFile = new JarFile(file);
+    // Entries are read lazily through the store, which closes the jar along with itself
+    debugClassSourceStore.addCloseable(jarFile);
 
     Enumeration<JarEntry> entries = jarFile.entries();
-    List<String> sources = new ArrayList<>();
+    Map<String, String> sources = new HashMap<>();
     while (entries.hasMoreElements()) {
-      sources.add(entries.nextElement().getRealName());
+      String source = entries.nextElement().getRealName();
+      String className = sourceToClassName(source);
+      if (className != null) {
+        sources.put(className, source);
+      }
     }
     return processSourcesList(sources, filter, source -> new DebugClassSource(false) {
       @Override
       public String getContentsAsString() throws Exception {
-        return inputStreamToString(jarFile.getInputStream(jarFile.getEntry(source)));
+        try (InputStream inputStream = jarFile.getInputStream(jarFile.getEntry(source))) {
+          return inputStreamToString(inputStream);
+        }
       }
     });
   }
 
-  public Set<Class<?>> addDebugClassesFromDirectory(String directoryPath, DebugClassSourceFilter filter) throws IOException, ClassNotFoundException {
-    File directory = new File(directoryPath);
-    if (!directory.isDirectory()) {
-      throw new IllegalArgumentException();
+  // Adds the sources directly inside the directory of packageName (empty for the default package)
+  // under sourceRootPath, e.g. ("src", "com.foo") registers src/com/foo/Bar.java as com.foo.Bar
+  public Set<String> addDebugClassesFromDirectory(String sourceRootPath, String packageName, DebugClassSourceFilter filter) throws IOException {
+    Path sourceRoot = Paths.get(sourceRootPath);
+    Path directory = packageName.isEmpty() ? sourceRoot : sourceRoot.resolve(packageName.replace('.', File.separatorChar));
+    if (!Files.isDirectory(directory)) {
+      throw new IllegalArgumentException(directory + " is not a directory.");
+    }
+    Map<String, String> sources = new HashMap<>();
+    List<Path> paths;
+    try (Stream<Path> listing = Files.list(directory)) {
+      paths = listing.collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      String className = sourceToClassName(sourceRoot.relativize(path).toString());
+      if (className != null) {
+        sources.put(className, path.toString());
+      }
     }
-    List<String> sources = Files.list(directory.toPath()).map(Path::toString).collect(Collectors.toList());
     return processSourcesList(sources, filter, source -> new DebugClassSource(false) {
       @Override
       public String getContentsAsString() throws Exception {
-        return inputStreamToString(new FileInputStream(new File(source)));
+        try (InputStream inputStream = new FileInputStream(new File(source))) {
+          return inputStreamToString(inputStream);
+        }
       }
     });
   }
 
-  private Set<Class<?>> processSourcesList(List<String> sources, DebugClassSourceFilter filter, Function<String, DebugClassSource> debugClassSourceProvider) throws ClassNotFoundException {
-    Map<Class<?>, String> representedClasses = new HashMap<>();
-
-    for (String source : sources) {
-      Class<?> representedClass = sourceToClass(source);
-      if (representedClass != null) {
-        representedClasses.put(representedClass, source);
-      }
-    }
-
+  private Set<String> processSourcesList(Map<String, String> sources, DebugClassSourceFilter filter, Function<String, DebugClassSource> debugClassSourceProvider) {
     if (filter != null) {
-      Set<Class<?>> filteredClasses = filter.getFilteredClasses();
-      Set<Class<?>> excludes;
-
-      Set<Class<?>> representedClassesKeySet = representedClasses.keySet();
-      if (filter.getFilterType() == DebugClassSourceFilterType.INCLUDE) {
-        excludes = new HashSet<>(representedClassesKeySet);
-        excludes.removeAll(filteredClasses);
-      } else {
-        excludes = filteredClasses;
-      }
-
-      representedClassesKeySet.removeAll(excludes);
+      sources.keySet().removeIf(className -> !filter.accepts(className));
     }
 
-    for (Map.Entry<Class<?>, String> representedClass : representedClasses.entrySet()) {
+    for (Map.Entry<String, String> representedClass : sources.entrySet()) {
       addDebugClassSource(representedClass.getKey(), debugClassSourceProvider.apply(representedClass.getValue()));
     }
 
-    return representedClasses.keySet();
+    return sources.keySet();
   }
 
   public void submitDebugClassSources() {
     List<String> classNames = new ArrayList<>(debugClassSources.size());
-    for (Class<?> clazz : debugClassSources.keySet()) {
+    for (DebugClassSource debugClassSource : debugClassSources.values()) {
+      if (debugClassSource.isCached()) {
+        debugClassSourceStore.prefetch(debugClassSource);
+      }
+    }
+    classNames.addAll(debugClassSources.keySet());
+    Collection<String> classFilters = classPrepareFilterMode == ClassPrepareFilterMode.PACKAGE_PREFIX ? toPackagePrefixFilters(classNames) : classNames;
+    for (String classFilter : classFilters) {
       ClassPrepareRequest request = eventRequestManager.createClassPrepareRequest();
-      String className = clazz.getName();
-      request.addClassFilter(className);
-      classNames.add(className);
+      request.addClassFilter(classFilter);
       setEventRequestEnabled(request, true);
     }
     String globalClassFilter = Utilities.longestCommonPrefix(classNames);
     if (!globalClassFilter.isEmpty()) {
       this.globalClassFilter = globalClassFilter + "*";
     }
+    if (!getConditionalBreakpoints().isEmpty()) {
+      ClassPrepareRequest request = eventRequestManager.createClassPrepareRequest();
+      request.addClassFilter(Agent.class.getName());
+      setEventRequestEnabled(request, true);
+      // The agent may well have been loaded before any request could be submitted
+      for (ReferenceType agentType : eventRequestManager.virtualMachine().classesByName(Agent.class.getName())) {
+        createConditionalBreakpointHitRequest(agentType);
+      }
+    }
+  }
+
+  // One "package.*" filter per package, leaving out packages already covered by an enclosing
+  // one. Classes in the default package keep an exact filter, since "*" would match everything.
+  private static Set<String> toPackagePrefixFilters(Collection<String> classNames) {
+    TreeSet<String> packages = new TreeSet<>();
+    Set<String> classFilters = new LinkedHashSet<>();
+    for (String className : classNames) {
+      int lastDot = className.lastIndexOf('.');
+      if (lastDot < 0) {
+        classFilters.add(className);
+      } else {
+        packages.add(className.substring(0, lastDot + 1));
+      }
+    }
+    String enclosing = null;
+    for (String packagePrefix : packages) {
+      // Sorted order puts every subpackage directly after the package that covers it
+      if (enclosing == null || !packagePrefix.startsWith(enclosing)) {
+        enclosing = packagePrefix;
+        classFilters.add(packagePrefix + "*");
+      }
+    }
+    return classFilters;
+  }
+
+  public Map<String, Map<Integer, String>> getConditionalBreakpoints() {
+    Map<String, Map<Integer, String>> conditionalBreakpoints = new LinkedHashMap<>();
+    for (Map.Entry<String, DebugClassSource> debugClassSourceEntry : debugClassSources.entrySet()) {
+      Map<Integer, String> classConditionalBreakpoints = debugClassSourceEntry.getValue().getConditionalBreakpoints();
+      if (!classConditionalBreakpoints.isEmpty()) {
+        conditionalBreakpoints.put(debugClassSourceEntry.getKey(), classConditionalBreakpoints);
+      }
+    }
+    return conditionalBreakpoints;
+  }
+
+  private void createConditionalBreakpointHitRequest(ReferenceType agentType) {
+    if (conditionalBreakpointHitRequest != null) {
+      return;
+    }
+    Method hit = agentType.methodsByName(Agent.HIT_METHOD_NAME).get(0);
+    conditionalBreakpointHitRequest = eventRequestManager.createBreakpointRequest(hit.location());
+    conditionalBreakpointHitRequest.putProperty(CONDITIONAL_BREAKPOINT_HIT, true);
+    setEventRequestEnabled(conditionalBreakpointHitRequest, true);
   }
 
   public void enableExceptionReporting(boolean notifyCaught, boolean notifyUncaught) {
     setEventRequestEnabled(eventRequestManager.createExceptionRequest(null, notifyCaught, notifyUncaught), true);
   }
 
-  public void createDebugClassFrom(ClassPrepareEvent event) throws ClassNotFoundException, AbsentInformationException {
+  public void createDebugClassFrom(ClassPrepareEvent event) throws AbsentInformationException {
     ReferenceType referenceType = event.referenceType();
-    Class<?> clazz = Class.forName(referenceType.name());
-    DebugClassSource debugClassSource = debugClassSources.get(clazz);
-    DebugClass debugClass = new DebugClass(clazz, debugClassSource, referenceType::locationsOfLine);
-    debugClass.setCached(debugClassSource.isCached());
+    String className = referenceType.name();
+    if (className.equals(Agent.class.getName())) {
+      createConditionalBreakpointHitRequest(referenceType);
+      return;
+    }
+    DebugClassSource debugClassSource = debugClassSources.get(className);
+    if (debugClassSource == null) {
+      // A nested type of a registered source, or matched only by a package prefix filter
+      DebugClass enclosing = debugClasses.get(toEnclosingClassName(className));
+      if (enclosing != null) {
+        debugClassesByType.put(referenceType, enclosing);
+      }
+      return;
+    }
+    DebugClass debugClass = new DebugClass(className, debugClassSource, referenceType::locationsOfLine, debugClassSourceStore);
+    // A class that has just been prepared is likely to be shown soon
+    debugClassSourceStore.prefetch(debugClassSource);
     for (int compileTimeBreakpoint : debugClassSource.getCompileTimeBreakpoints()) {
       createBreakpointRequest(new DebugClassLocation(debugClass, compileTimeBreakpoint));
     }
-    debugClasses.put(clazz, debugClass);
+    debugClasses.put(className, debugClass);
+    debugClassesByType.put(referenceType, debugClass);
+    // Nested types seen before their enclosing class was prepared may now be mappable
+    unmappedTypes.clear();
+  }
+
+  private static String toEnclosingClassName(String className) {
+    int separator = className.indexOf('$');
+    return separator < 0 ? className : className.substring(0, separator);
+  }
+
+  public boolean createModificationWatchpointRequests(ReferenceType referenceType) {
+    if (!referenceType.virtualMachine().canWatchFieldModification()) {
+      return false;
+    }
+    for (Field field : referenceType.allFields()) {
+      if (!field.isStatic() && !field.isFinal() && modificationWatchedFields.add(field)) {
+        // Never suspends, so it cannot deadlock an invocation and is kept out of eventRequestStateMap
+        ModificationWatchpointRequest request = eventRequestManager.createModificationWatchpointRequest(field);
+        request.setSuspendPolicy(EventRequest.SUSPEND_NONE);
+        request.enable();
+      }
+    }
+    return true;
   }
 
   public BreakpointRequest getBreakpointRequestAt(DebugClassLocation selectedLocation) {
-    Class<?> clazz = selectedLocation.getDebugClass().getClazz();
+    String className = selectedLocation.getDebugClass().getClassName();
     int lineNumber = selectedLocation.getLineNumber();
-    return getDebugClassFor(clazz).getBreakpointRequest(lineNumber);
+    return getDebugClassFor(className).getBreakpointRequest(lineNumber);
   }
 
   public void createBreakpointRequest(DebugClassLocation breakpointLocation) throws AbsentInformationException {
@@ -180,30 +304,137 @@ public class DebuggerModel {
     }
   }
 
+  public Class<?> getConstructionTarget() {
+    return constructionTarget;
+  }
+
+  public void setConstructionTarget(Class<?> constructionTarget) {
+    this.constructionTarget = constructionTarget;
+  }
+
+  // Runs until the line has been reached count more times. The count is kept by the
+  // target (a count filter), so nothing suspends along the way.
+  public void runToHit(DebugClassLocation location, int count) throws AbsentInformationException {
+    Location hitLocation = location.getDebugClass().getLocationOf(location.getLineNumber());
+    if (hitLocation == null) {
+      throw new IllegalArgumentException(String.format("There is no code at line %d.", location.getLineNumber()));
+    }
+    fastForward(Collections.singletonList(hitLocation), count);
+  }
+
+  // Runs until constructionTarget has been constructed count more times. This is a
+  // breakpoint on the constructor rather than a MethodEntryRequest, which would be
+  // evaluated on every method entry in the target and keep it interpreted.
+  public void runToConstruction(int count) {
+    List<ReferenceType> referenceTypes = eventRequestManager.virtualMachine().classesByName(constructionTarget.getName());
+    if (referenceTypes.isEmpty()) {
+      throw new IllegalArgumentException(String.format("%s has not been loaded yet.", constructionTarget.getName()));
+    }
+    List<Method> constructors = new ArrayList<>();
+    for (Method method : referenceTypes.get(0).methods()) {
+      if (method.isConstructor()) {
+        constructors.add(method);
+      }
+    }
+    // Separate count filters could not add up across constructors
+    if (constructors.size() != 1) {
+      throw new IllegalArgumentException(String.format("%s must have exactly one constructor.", constructionTarget.getName()));
+    }
+    fastForward(Collections.singletonList(constructors.get(0).location()), count);
+  }
+
+  private void fastForward(List<Location> locations, int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    cancelFastForward();
+    for (BreakpointRequest breakpointRequest : eventRequestManager.breakpointRequests()) {
+      if (breakpointRequest.isEnabled()) {
+        setEventRequestEnabled(breakpointRequest, false);
+        fastForwardSuspendedRequests.add(breakpointRequest);
+      }
+    }
+    for (Location location : locations) {
+      BreakpointRequest fastForwardRequest = eventRequestManager.createBreakpointRequest(location);
+      fastForwardRequest.addCountFilter(count);
+      setEventRequestEnabled(fastForwardRequest, true);
+      fastForwardRequests.add(fastForwardRequest);
+    }
+    setRequestedStepRequestDepth(null);
+  }
+
+  public boolean isFastForwardRequest(EventRequest eventRequest) {
+    return fastForwardRequests.contains(eventRequest);
+  }
+
+  public void cancelFastForward() {
+    for (BreakpointRequest fastForwardRequest : fastForwardRequests) {
+      eventRequestStateMap.remove(fastForwardRequest);
+      eventRequestManager.deleteEventRequest(fastForwardRequest);
+    }
+    fastForwardRequests.clear();
+    for (BreakpointRequest breakpointRequest : fastForwardSuspendedRequests) {
+      setEventRequestEnabled(breakpointRequest, true);
+    }
+    fastForwardSuspendedRequests.clear();
+  }
+
   public DebugClassLocation toDebugClassLocation(Location location) {
-    DebugClassLocation debugClassLocation = null;
-    String className = location.toString().split(":")[0];
-    try {
-      String[] classNameComponents = className.split("\\$");
-      if (classNameComponents.length > 1) {
-        className = classNameComponents[0];
+    ReferenceType referenceType = location.declaringType();
+    DebugClass debugClass = debugClassesByType.get(referenceType);
+    if (debugClass == null) {
+      // Types prepared without an event of their own (nested types under EXACT filters) are
+      // resolved by name once, and remembered either way
+      if (unmappedTypes.contains(referenceType)) {
+        return null;
       }
-      Class<?> clazz = Class.forName(className);
-      DebugClass debugClass = debugClasses.get(clazz);
-      if (debugClass != null) {
-        debugClassLocation = new DebugClassLocation(debugClass, location.lineNumber());
+      debugClass = debugClasses.get(toEnclosingClassName(referenceType.name()));
+      if (debugClass == null) {
+        unmappedTypes.add(referenceType);
+        return null;
       }
-    } catch (ClassNotFoundException ignored) {
+      debugClassesByType.put(referenceType, debugClass);
     }
-    return debugClassLocation;
+    return new DebugClassLocation(debugClass, location.lineNumber());
+  }
+
+  // For replaying recorded traces, where no VM has prepared (or will ever prepare) the class
+  public DebugClassLocation toDebugClassLocation(String className, int lineNumber) {
+    DebugClass debugClass = debugClasses.get(className);
+    if (debugClass == null) {
+      DebugClassSource debugClassSource = debugClassSources.get(className);
+      if (debugClassSource == null) {
+        return null;
+      }
+      debugClass = new DebugClass(className, debugClassSource, unused -> Collections.emptyList(), debugClassSourceStore);
+      debugClassSourceStore.prefetch(debugClassSource);
+      debugClasses.put(className, debugClass);
+    }
+    return new DebugClassLocation(debugClass, lineNumber);
+  }
+
+  public DebugClassSourceStore getDebugClassSourceStore() {
+    return debugClassSourceStore;
+  }
+
+  public void close() {
+    debugClassSourceStore.close();
   }
 
   public DebugClassSource getDebugClassSourceFor(Class<?> clazz) {
-    return debugClassSources.get(clazz);
+    return getDebugClassSourceFor(clazz.getName());
+  }
+
+  public DebugClassSource getDebugClassSourceFor(String className) {
+    return debugClassSources.get(className);
   }
 
   public DebugClass getDebugClassFor(Class<?> clazz) {
-    return debugClasses.get(clazz);
+    return getDebugClassFor(clazz.getName());
+  }
+
+  public DebugClass getDebugClassFor(String className) {
+    return debugClasses.get(className);
   }
 
   public void setRequestedStepRequestDepth(Integer requestedStepRequestDepth) {
@@ -225,6 +456,7 @@ public class DebuggerModel {
           if (globalClassFilter != null) {
             requestedStepRequest.addClassFilter(globalClassFilter);
           }
+          requestedStepRequest.addClassExclusionFilter(Agent.class.getPackageName() + ".*");
           stepRequestMap.put(requestedStepRequestDepth, requestedStepRequest);
         }
         setEventRequestEnabled(requestedStepRequest, true);
@@ -245,22 +477,77 @@ public class DebuggerModel {
     }
   }
 
+  // While it waits, the event thread also runs the tasks other threads submit through
+  // submitWhileAwaitingContinuation, so dereferencing happens on this thread while the
+  // suspension is held
   public void awaitEventProcessingContinuation() {
     synchronized (eventProcessingControl) {
+      awaitingEventProcessingContinuation = true;
       try {
-        eventProcessingControl.wait();
+        while (!eventProcessingContinued) {
+          SuspendedTask<?> task = suspendedTasks.poll();
+          if (task != null) {
+            task.run();
+          } else {
+            eventProcessingControl.wait();
+          }
+        }
       } catch (InterruptedException e) {
         e.printStackTrace();
+      } finally {
+        awaitingEventProcessingContinuation = false;
+        eventProcessingContinued = false;
+        // Tasks that lost the race with the resume are refused rather than left waiting
+        suspendedTasks.forEach(SuspendedTask::refuse);
+        suspendedTasks.clear();
       }
     }
   }
 
   public void resumeEventProcessing() {
     synchronized (eventProcessingControl) {
+      eventProcessingContinued = true;
       eventProcessingControl.notify();
     }
   }
 
+  // Runs task on the event thread if it is waiting in awaitEventProcessingContinuation, or
+  // completes with otherwise, without running task, if it is not
+  public <T> CompletableFuture<T> submitWhileAwaitingContinuation(Supplier<T> task, T otherwise) {
+    SuspendedTask<T> suspendedTask = new SuspendedTask<>(task, otherwise);
+    synchronized (eventProcessingControl) {
+      if (awaitingEventProcessingContinuation && !eventProcessingContinued) {
+        suspendedTasks.add(suspendedTask);
+        eventProcessingControl.notify();
+      } else {
+        suspendedTask.refuse();
+      }
+    }
+    return suspendedTask.future;
+  }
+
+  public DebuggerInvocationMode getInvocationMode() {
+    return invocationMode;
+  }
+
+  public void setInvocationMode(DebuggerInvocationMode invocationMode) {
+    this.invocationMode = invocationMode;
+  }
+
+  public ClassPrepareFilterMode getClassPrepareFilterMode() {
+    return classPrepareFilterMode;
+  }
+
+  // PACKAGE_PREFIX installs a few wildcard ClassPrepareRequests rather than one per source,
+  // which matters once a whole jar is registered; events for unregistered classes are dropped
+  public void setClassPrepareFilterMode(ClassPrepareFilterMode classPrepareFilterMode) {
+    this.classPrepareFilterMode = classPrepareFilterMode;
+  }
+
+  public int getInvocationOptions() {
+    return invocationMode == DebuggerInvocationMode.SINGLE_THREADED ? ObjectReference.INVOKE_SINGLE_THREADED : 0;
+  }
+
   public void setEventRequestEnabled(EventRequest eventRequest, boolean enabled) {
     if (!deadlockSafeInvoke) {
       eventRequest.setEnabled(enabled);
@@ -269,15 +556,56 @@ public class DebuggerModel {
   }
 
   public void deadlockSafeInvoke(Invokable toInvoke) throws Exception {
+    if (invocationMode != DebuggerInvocationMode.REQUEST_TOGGLING) {
+      toInvoke.invoke();
+      return;
+    }
     deadlockSafeInvoke = true;
-    for (Map.Entry<EventRequest, Boolean> eventRequestEntry : eventRequestStateMap.entrySet()) {
-      eventRequestEntry.getKey().setEnabled(false);
+    try {
+      toInvoke.invoke();
+    } finally {
+      if (eventRequestsDisabledForInvocation) {
+        for (Map.Entry<EventRequest, Boolean> eventRequestEntry : eventRequestStateMap.entrySet()) {
+          eventRequestEntry.getKey().setEnabled(eventRequestEntry.getValue());
+        }
+        eventRequestsDisabledForInvocation = false;
+      }
+      deadlockSafeInvoke = false;
     }
-    toInvoke.invoke();
-    for (Map.Entry<EventRequest, Boolean> eventRequestEntry : eventRequestStateMap.entrySet()) {
-      eventRequestEntry.getKey().setEnabled(eventRequestEntry.getValue());
+  }
+
+  public void prepareForInvocation() {
+    if (deadlockSafeInvoke && !eventRequestsDisabledForInvocation) {
+      for (Map.Entry<EventRequest, Boolean> eventRequestEntry : eventRequestStateMap.entrySet()) {
+        eventRequestEntry.getKey().setEnabled(false);
+      }
+      eventRequestsDisabledForInvocation = true;
+    }
+  }
+
+  private static class SuspendedTask<T> {
+
+    private final Supplier<T> task;
+    private final T otherwise;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private SuspendedTask(Supplier<T> task, T otherwise) {
+      this.task = task;
+      this.otherwise = otherwise;
     }
-    deadlockSafeInvoke = false;
+
+    private void run() {
+      try {
+        future.complete(task.get());
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+      }
+    }
+
+    private void refuse() {
+      future.complete(otherwise);
+    }
+
   }
 
 }
@@ -6,16 +6,22 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
 import java.awt.*;
 import java.awt.event.ActionListener;
 import java.awt.geom.Rectangle2D;
+import java.net.URL;
 import java.util.List;
 import java.util.*;
 
 import static com.swilkins.ScrabbleVisualizer.debug.DebuggerControl.CONTINUE;
+import static com.swilkins.ScrabbleVisualizer.utility.Utilities.createImageIconFrom;
 
 public class DebuggerSourceView extends JPanel {
 
+  public static final int DEFAULT_DOCUMENT_CACHE_CAPACITY = 16;
+  public static final Dimension ICON_DIMENSION = new Dimension(12, 12);
+
   private final JScrollPane scrollWrapper;
 
   private final JLabel locationLabel = new JLabel();
@@ -26,6 +32,15 @@ public class DebuggerSourceView extends JPanel {
   private DebugClassLocation selectedLocation;
   private DebugClassLocation programmaticSelectedLocation;
 
+  // Built documents are swapped in on class switches instead of re-parsing the source
+  private final Map<DebugClass, SourceDocument> documentCache = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<DebugClass, SourceDocument> eldest) {
+      return size() > DEFAULT_DOCUMENT_CACHE_CAPACITY;
+    }
+  };
+  private DebugClass displayedDebugClass;
+
   private boolean isCenteringPreservedOnClick = false;
 
   public DebuggerSourceView() {
@@ -39,7 +54,7 @@ public class DebuggerSourceView extends JPanel {
       if (selectedLocation != null) {
         DebugClass debugClass = selectedLocation.getDebugClass();
         int selectedLineNumber = debugClassTextView.getSelectedLineNumber();
-        locationLabelText = String.format("%s: %d", debugClass.getClazz().getName(), selectedLineNumber);
+        locationLabelText = String.format("%s: %d", debugClass.getClassName(), selectedLineNumber);
         locationLabel.setText(locationLabelText);
         DebugClassLocation selectedLocation = new DebugClassLocation(debugClass, selectedLineNumber);
         if (isCenteringPreservedOnClick) {
@@ -85,6 +100,10 @@ public class DebuggerSourceView extends JPanel {
     }
   }
 
+  public void setEnabledControlButtons(Set<DebuggerControl> enabledControls) {
+    controlButtons.forEach((control, controlButton) -> controlButton.setEnabled(enabledControls.contains(control)));
+  }
+
   public void setAllControlButtonsEnabled(boolean enabled) {
     controlButtons.values().forEach(controlButton -> controlButton.setEnabled(enabled));
   }
@@ -109,6 +128,17 @@ public class DebuggerSourceView extends JPanel {
     return controlButton;
   }
 
+  public void addDefaultControlButtons() {
+    for (DebuggerControl control : controlButtons.keySet()) {
+      JButton controlButton = addDefaultControlButton(control);
+      URL iconUrl = DebuggerSourceView.class.getResource(String.format("../resource/icons/%s.png", control.getLabel()));
+      if (iconUrl != null) {
+        controlButton.setIcon(createImageIconFrom(iconUrl, ICON_DIMENSION));
+      }
+      controlButton.setFocusPainted(false);
+    }
+  }
+
   public DebugClassLocation getProgrammaticSelectedLocation() {
     return programmaticSelectedLocation;
   }
@@ -119,14 +149,15 @@ public class DebuggerSourceView extends JPanel {
 
   public DebugClassLocation setSelectedLocation(DebugClassLocation updatedLocation) {
     DebugClass updatedDebugClass = updatedLocation.getDebugClass();
-    if (selectedLocation == null || updatedDebugClass != selectedLocation.getDebugClass()) {
-      debugClassTextView.setText(updatedDebugClass.getContentsAsString());
+    if (updatedDebugClass != displayedDebugClass) {
+      debugClassTextView.setSourceDocument(documentCache.computeIfAbsent(updatedDebugClass, SourceDocument::new));
+      displayedDebugClass = updatedDebugClass;
     }
+    SourceDocument sourceDocument = debugClassTextView.sourceDocument;
 
     int updatedLineNumber = updatedLocation.getLineNumber();
-    Element root = debugClassTextView.getDocument().getDefaultRootElement();
     updatedLineNumber = Math.max(updatedLineNumber, 1);
-    updatedLineNumber = Math.min(updatedLineNumber, root.getElementCount());
+    updatedLineNumber = Math.min(updatedLineNumber, sourceDocument.getLineCount());
     if (updatedLineNumber != updatedLocation.getLineNumber()) {
       updatedLocation = new DebugClassLocation(updatedDebugClass, updatedLineNumber);
     }
@@ -136,8 +167,7 @@ public class DebuggerSourceView extends JPanel {
 
     repaint();
 
-    int startOfLineOffset = root.getElement(updatedLineNumber - 1).getStartOffset();
-    debugClassTextView.setCaretPosition(startOfLineOffset);
+    debugClassTextView.setCaretPosition(sourceDocument.getLineStartOffset(updatedLineNumber));
 
     Container container = SwingUtilities.getAncestorOfClass(JViewport.class, debugClassTextView);
 
@@ -161,12 +191,13 @@ public class DebuggerSourceView extends JPanel {
   }
 
   public void reportException(String exception, DebuggerExceptionType type) {
-    debugClassTextView.setText(String.format("Exception in %s\n%s\n\n", type.getLocationName(), exception));
+    debugClassTextView.setSourceDocument(new SourceDocument(String.format("Exception in %s\n%s\n\n", type.getLocationName(), exception)));
+    displayedDebugClass = null;
   }
 
   @Override
   public void repaint() {
-    if (selectedLocation != null) {
+    if (selectedLocation != null && selectedLocation.getDebugClass() == displayedDebugClass) {
       debugClassTextView.paintBreakpointLines(selectedLocation.getDebugClass().getEnabledBreakpoints());
     }
     super.repaint();
@@ -176,10 +207,49 @@ public class DebuggerSourceView extends JPanel {
     debugClassTextView.start();
   }
 
+  // A source document together with its line-offset table and the view geometry of the
+  // lines painted as breakpoints, which stays valid for as long as the font does
+  private static class SourceDocument {
+
+    private final PlainDocument document = new PlainDocument();
+    private final int[] lineStartOffsets;
+    private final Map<Integer, Rectangle2D> lineGeometry = new HashMap<>();
+    private Font lineGeometryFont;
+    private Set<Integer> breakpointLines = Collections.emptySet();
+    private final List<Rectangle2D> breakpointViews = new ArrayList<>();
+
+    private SourceDocument(DebugClass debugClass) {
+      this(debugClass.getContentsAsString());
+    }
+
+    private SourceDocument(String contents) {
+      try {
+        document.insertString(0, contents, null);
+      } catch (BadLocationException e) {
+        e.printStackTrace();
+      }
+      Element root = document.getDefaultRootElement();
+      lineStartOffsets = new int[root.getElementCount()];
+      for (int i = 0; i < lineStartOffsets.length; i++) {
+        lineStartOffsets[i] = root.getElement(i).getStartOffset();
+      }
+    }
+
+    private int getLineCount() {
+      return lineStartOffsets.length;
+    }
+
+    private int getLineStartOffset(int lineNumber) {
+      return lineStartOffsets[lineNumber - 1];
+    }
+
+  }
+
   public static class DebugClassTextView extends JTextArea {
     private final LineNumberView lineNumberView;
     private DebuggerViewOptions options = new DebuggerViewOptions();
-    private final List<Rectangle2D> breakpointViews = new ArrayList<>();
+    private SourceDocument sourceDocument;
+    private List<Rectangle2D> breakpointViews = Collections.emptyList();
     private boolean started;
 
     public DebugClassTextView() {
@@ -202,22 +272,48 @@ public class DebuggerSourceView extends JPanel {
       started = true;
     }
 
+    private void setSourceDocument(SourceDocument sourceDocument) {
+      this.sourceDocument = sourceDocument;
+      setDocument(sourceDocument.document);
+      breakpointViews = sourceDocument.breakpointViews;
+    }
+
     public void paintBreakpointLines(Set<Integer> breakpointLines) {
       lineNumberView.setBreakpointLines(breakpointLines);
+      if (sourceDocument == null) {
+        return;
+      }
+      Font font = getFont();
+      if (!font.equals(sourceDocument.lineGeometryFont)) {
+        sourceDocument.lineGeometry.clear();
+        sourceDocument.lineGeometryFont = font;
+        sourceDocument.breakpointLines = Collections.emptySet();
+      }
+      if (breakpointLines.equals(sourceDocument.breakpointLines)) {
+        return;
+      }
+      sourceDocument.breakpointLines = breakpointLines;
       breakpointViews.clear();
       for (int lineNumber : breakpointLines) {
-        try {
-          Element element = getDocument().getDefaultRootElement().getElement(lineNumber - 1);
-          if (element != null) {
-            breakpointViews.add(modelToView2D(element.getStartOffset()));
+        if (lineNumber >= 1 && lineNumber <= sourceDocument.getLineCount()) {
+          Rectangle2D breakpointView = sourceDocument.lineGeometry.computeIfAbsent(lineNumber, this::lineToView);
+          if (breakpointView != null) {
+            breakpointViews.add(breakpointView);
           }
-        } catch (BadLocationException e) {
-          e.printStackTrace();
         }
       }
       repaint();
     }
 
+    private Rectangle2D lineToView(int lineNumber) {
+      try {
+        return modelToView2D(sourceDocument.getLineStartOffset(lineNumber));
+      } catch (BadLocationException e) {
+        e.printStackTrace();
+        return null;
+      }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
       g.setColor(getBackground());
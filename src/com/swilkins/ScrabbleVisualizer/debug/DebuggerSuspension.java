@@ -0,0 +1,60 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+public class DebuggerSuspension {
+
+  private final Debugger debugger;
+  private final DebugClassLocation location;
+  private final ThreadReference thread;
+  private final Map<String, Value> values;
+  private final long suspension;
+
+  DebuggerSuspension(Debugger debugger, DebugClassLocation location, ThreadReference thread, Map<String, Value> values, long suspension) {
+    this.debugger = debugger;
+    this.location = location;
+    this.thread = thread;
+    this.values = values;
+    this.suspension = suspension;
+  }
+
+  public DebugClassLocation getLocation() {
+    return location;
+  }
+
+  public ThreadReference getThread() {
+    return thread;
+  }
+
+  public Set<String> getVariableNames() {
+    return Collections.unmodifiableSet(values.keySet());
+  }
+
+  public boolean isActive() {
+    return debugger.isActiveSuspension(suspension);
+  }
+
+  public Map<String, Object> dereferenceVariables() {
+    return dereferenceVariables(null);
+  }
+
+  // Safe to call from any thread: the dereferencing is done on the event thread, and only
+  // while this suspension is still held. Once it is not, the result is empty.
+  public Map<String, Object> dereferenceVariables(Set<String> variableNames) {
+    return dereferenceVariablesLater(variableNames).join();
+  }
+
+  // As dereferenceVariables, but without waiting for the event thread to get to it
+  public CompletableFuture<Map<String, Object>> dereferenceVariablesLater(Set<String> variableNames) {
+    Map<String, Value> selected = new HashMap<>(values);
+    if (variableNames != null) {
+      selected.keySet().retainAll(variableNames);
+    }
+    return debugger.whileSuspendedLater(suspension, () -> debugger.dereferenceVariables(thread, selected), Collections.emptyMap());
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.swilkins.ScrabbleVisualizer.view.DebuggerWatchView;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// The window shared by live debugging and trace replay: screen sized, with the source view
+// above the watch view (if there is one), and split resizes passed on to listeners
+public abstract class DebuggerViewFrame extends JFrame {
+
+  protected static final Dimension screenDimension;
+  protected static final Dimension verticalScreenHalf;
+
+  static {
+    Dimension resolution = Toolkit.getDefaultToolkit().getScreenSize();
+    screenDimension = new Dimension(resolution.width, resolution.height - 60);
+    verticalScreenHalf = new Dimension(screenDimension.width, screenDimension.height / 2);
+  }
+
+  private final Set<BiConsumer<Dimension, Integer>> onSplitResizeListeners = new HashSet<>();
+
+  protected DebuggerViewFrame(String title) {
+    super(title);
+    setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    setSize(screenDimension.width, screenDimension.height);
+    setResizable(false);
+  }
+
+  protected void layOutViews(JComponent sourceComponent, DebuggerWatchView debuggerWatchView) {
+    if (debuggerWatchView == null) {
+      getContentPane().add(sourceComponent);
+      return;
+    }
+    debuggerWatchView.setPreferredSize(verticalScreenHalf);
+    debuggerWatchView.initialize(verticalScreenHalf);
+    addOnSplitResizeListener(debuggerWatchView.onSplitResize());
+
+    JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, sourceComponent, debuggerWatchView);
+    splitPane.setDividerLocation(verticalScreenHalf.height);
+    splitPane.addPropertyChangeListener(e -> {
+      if (e.getPropertyName().equals("dividerLocation")) {
+        int location = (int) e.getNewValue();
+        onSplitResizeListeners.forEach(listener -> listener.accept(screenDimension, location));
+      }
+    });
+
+    getContentPane().add(splitPane);
+  }
+
+  protected void addOnSplitResizeListener(BiConsumer<Dimension, Integer> onSplitResizeListener) {
+    if (onSplitResizeListener != null) {
+      onSplitResizeListeners.add(onSplitResizeListener);
+    }
+  }
+
+}
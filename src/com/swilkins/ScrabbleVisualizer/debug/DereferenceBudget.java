@@ -0,0 +1,91 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ObjectReference;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.swilkins.ScrabbleVisualizer.debug.TruncationReason.*;
+
+public class DereferenceBudget {
+
+  public static final int DEFAULT_MAX_DEPTH = 16;
+  public static final int DEFAULT_MAX_ELEMENTS = 25000;
+  public static final int DEFAULT_MAX_MIRRORS = 250000;
+
+  private int maxDepth = DEFAULT_MAX_DEPTH;
+  private int maxElements = DEFAULT_MAX_ELEMENTS;
+  private int maxMirrors = DEFAULT_MAX_MIRRORS;
+
+  private final Set<Long> path = new HashSet<>();
+  private int depth;
+  private int mirrors;
+  private boolean expanding;
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public DereferenceBudget setMaxDepth(int maxDepth) {
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  public int getMaxElements() {
+    return maxElements;
+  }
+
+  public DereferenceBudget setMaxElements(int maxElements) {
+    this.maxElements = maxElements;
+    return this;
+  }
+
+  public int getMaxMirrors() {
+    return maxMirrors;
+  }
+
+  public DereferenceBudget setMaxMirrors(int maxMirrors) {
+    this.maxMirrors = maxMirrors;
+    return this;
+  }
+
+  public void reset() {
+    path.clear();
+    depth = 0;
+    mirrors = 0;
+    expanding = false;
+  }
+
+  public void beginExpansion() {
+    reset();
+    expanding = true;
+  }
+
+  public TruncationReason enter(ObjectReference object) {
+    long uniqueID = object.uniqueID();
+    if (path.contains(uniqueID)) {
+      return CYCLE;
+    }
+    if (depth >= maxDepth) {
+      return DEPTH;
+    }
+    if (mirrors >= maxMirrors) {
+      return MIRRORS;
+    }
+    path.add(uniqueID);
+    depth++;
+    mirrors++;
+    return null;
+  }
+
+  public void exit(ObjectReference object) {
+    path.remove(object.uniqueID());
+    depth--;
+  }
+
+  public int getElementLimit() {
+    // The array being expanded is fetched whole; anything nested in it is budgeted as usual
+    return expanding && depth == 1 ? Integer.MAX_VALUE : maxElements;
+  }
+
+}
@@ -0,0 +1,155 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ThreadReference;
+
+import java.util.*;
+
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.IMMUTABLE;
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.INVALIDATE_ON_RESUME;
+
+public class DereferenceCache {
+
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Deque<Frame> dereferenceStack = new ArrayDeque<>();
+  private final ReferenceLifecycleManager referenceLifecycleManager;
+  private int capacity;
+
+  public DereferenceCache(int capacity, ReferenceLifecycleManager referenceLifecycleManager) {
+    this.referenceLifecycleManager = referenceLifecycleManager;
+    setCapacity(capacity);
+  }
+
+  public void setCapacity(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Dereference cache capacity must be positive.");
+    }
+    this.capacity = capacity;
+    evictToCapacity();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public boolean contains(ObjectReference object) {
+    return entries.containsKey(object.uniqueID());
+  }
+
+  // Whether the cached value of object can still be reused for good: its entry has been neither
+  // invalidated (by a dependency changing, say) nor downgraded for holding uncached parts
+  public boolean holdsImmutable(ObjectReference object) {
+    Entry entry = entries.get(object.uniqueID());
+    return entry != null && entry.policy == IMMUTABLE;
+  }
+
+  public Object dereference(ObjectReference object, ThreadReference thread, DereferenceCachePolicy policy, Dereferencer dereferencer) throws NoSuchMethodException {
+    if (policy == null) {
+      onUncachedDereference();
+      return dereferencer.dereference(object, thread);
+    }
+    long uniqueID = object.uniqueID();
+    Entry existing = entries.get(uniqueID);
+    if (existing != null) {
+      addDependent(existing);
+      return existing.value;
+    }
+    Frame frame = new Frame(uniqueID, policy);
+    dereferenceStack.push(frame);
+    Object value;
+    try {
+      value = dereferencer.dereference(object, thread);
+    } finally {
+      dereferenceStack.pop();
+    }
+    Entry entry = new Entry(object, frame.policy, value);
+    addDependent(entry);
+    entries.put(uniqueID, entry);
+    referenceLifecycleManager.retain(object);
+    evictToCapacity();
+    return value;
+  }
+
+  public void onUncachedDereference() {
+    for (Frame frame : dereferenceStack) {
+      frame.policy = INVALIDATE_ON_RESUME;
+    }
+  }
+
+  public void invalidate(long uniqueID) {
+    Entry removed = entries.remove(uniqueID);
+    if (removed != null) {
+      referenceLifecycleManager.release(removed.object);
+      for (long dependent : removed.dependents) {
+        invalidate(dependent);
+      }
+    }
+  }
+
+  public void invalidateOnResume() {
+    List<Long> invalidated = new ArrayList<>();
+    for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+      if (entry.getValue().policy == INVALIDATE_ON_RESUME) {
+        invalidated.add(entry.getKey());
+      }
+    }
+    invalidated.forEach(this::invalidate);
+  }
+
+  public void clear() {
+    for (Entry entry : entries.values()) {
+      referenceLifecycleManager.release(entry.object);
+    }
+    entries.clear();
+  }
+
+  private void addDependent(Entry entry) {
+    Frame parent = dereferenceStack.peek();
+    if (parent != null) {
+      entry.dependents.add(parent.uniqueID);
+    }
+  }
+
+  private void evictToCapacity() {
+    Iterator<Long> eldest = entries.keySet().iterator();
+    while (entries.size() > capacity && eldest.hasNext()) {
+      long uniqueID = eldest.next();
+      invalidate(uniqueID);
+      eldest = entries.keySet().iterator();
+    }
+  }
+
+  private static class Frame {
+
+    private final long uniqueID;
+    private DereferenceCachePolicy policy;
+
+    private Frame(long uniqueID, DereferenceCachePolicy policy) {
+      this.uniqueID = uniqueID;
+      this.policy = policy;
+    }
+
+  }
+
+  private static class Entry {
+
+    private final ObjectReference object;
+    private final DereferenceCachePolicy policy;
+    private final Object value;
+    private final Set<Long> dependents = new HashSet<>();
+
+    private Entry(ObjectReference object, DereferenceCachePolicy policy, Object value) {
+      this.object = object;
+      this.policy = policy;
+      this.value = value;
+    }
+
+  }
+
+}
@@ -0,0 +1,9 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+public enum DereferenceCachePolicy {
+
+  IMMUTABLE,
+  INVALIDATE_ON_RESUME,
+  WATCHPOINT_INVALIDATED
+
+}
@@ -0,0 +1,59 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.*;
+
+import java.util.*;
+
+public class FieldDereferencer implements Dereferencer {
+
+  private final Debugger debugger;
+  private final Dereferencer fallback;
+  private final String[] fieldNames;
+  private final Map<ReferenceType, List<Field>> resolvedFields = new HashMap<>();
+
+  public FieldDereferencer(Debugger debugger, Dereferencer fallback, String... fieldNames) {
+    if (fieldNames.length == 0) {
+      throw new IllegalArgumentException("A field dereferencer must read at least one field.");
+    }
+    this.debugger = debugger;
+    this.fallback = fallback;
+    this.fieldNames = fieldNames;
+  }
+
+  @Override
+  public Object dereference(ObjectReference object, ThreadReference thread) throws NoSuchMethodException {
+    ReferenceType referenceType = object.referenceType();
+    List<Field> fields = resolvedFields.computeIfAbsent(referenceType, this::resolveFields);
+    if (fields.isEmpty()) {
+      if (fallback != null) {
+        return fallback.dereference(object, thread);
+      }
+      throw new NoSuchMethodException(String.format(
+              "Illegal field read in dereferencer: [%s read on %s]: Field does not exist.",
+              Arrays.toString(fieldNames), referenceType.name()
+      ));
+    }
+    Map<Field, Value> values = object.getValues(fields);
+    if (fields.size() == 1) {
+      return debugger.dereferenceValue(thread, values.get(fields.get(0)));
+    }
+    Object[] collector = new Object[fields.size()];
+    for (int i = 0; i < collector.length; i++) {
+      collector[i] = debugger.dereferenceValue(thread, values.get(fields.get(i)));
+    }
+    return collector;
+  }
+
+  private List<Field> resolveFields(ReferenceType referenceType) {
+    List<Field> fields = new ArrayList<>(fieldNames.length);
+    for (String fieldName : fieldNames) {
+      Field field = referenceType.fieldByName(fieldName);
+      if (field == null) {
+        return Collections.emptyList();
+      }
+      fields.add(field);
+    }
+    return fields;
+  }
+
+}
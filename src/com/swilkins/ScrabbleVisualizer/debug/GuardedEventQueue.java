@@ -0,0 +1,103 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.event.LocatableEvent;
+import com.sun.jdi.event.ModificationWatchpointEvent;
+import com.sun.jdi.request.EventRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class GuardedEventQueue {
+
+  private static final GuardedEventSet DISCONNECTED = new GuardedEventSet(Collections.emptyList(), false);
+
+  private final VirtualMachine virtualMachine;
+  private final BlockingQueue<GuardedEventSet> pending = new LinkedBlockingQueue<>();
+  private volatile ThreadReference invokingThread;
+  private volatile long droppedEventCount;
+
+  public GuardedEventQueue(VirtualMachine virtualMachine) {
+    this.virtualMachine = virtualMachine;
+    Thread pump = new Thread(this::pump, "GuardedEventQueue");
+    pump.setDaemon(true);
+    pump.start();
+  }
+
+  public void beginInvocation(ThreadReference thread) {
+    invokingThread = thread;
+  }
+
+  public void endInvocation() {
+    invokingThread = null;
+  }
+
+  public long getDroppedEventCount() {
+    return droppedEventCount;
+  }
+
+  public GuardedEventSet remove() throws InterruptedException {
+    GuardedEventSet eventSet = pending.take();
+    if (eventSet == DISCONNECTED) {
+      pending.add(DISCONNECTED);
+      throw new VMDisconnectedException();
+    }
+    return eventSet;
+  }
+
+  private void pump() {
+    try {
+      EventSet eventSet;
+      while ((eventSet = virtualMachine.eventQueue().remove()) != null) {
+        ThreadReference invoking = invokingThread;
+        if (invoking == null) {
+          pending.add(new GuardedEventSet(new ArrayList<>(eventSet), eventSet.suspendPolicy() != EventRequest.SUSPEND_NONE));
+          continue;
+        }
+        // Raised by one of our own invocations: the invoking thread cannot continue until this set is resumed
+        List<Event> forwarded = new ArrayList<>();
+        for (Event event : eventSet) {
+          if (event instanceof LocatableEvent && !(event instanceof ModificationWatchpointEvent) && invoking.equals(((LocatableEvent) event).thread())) {
+            droppedEventCount++;
+          } else {
+            forwarded.add(event);
+          }
+        }
+        eventSet.resume();
+        if (!forwarded.isEmpty()) {
+          pending.add(new GuardedEventSet(forwarded, false));
+        }
+      }
+    } catch (VMDisconnectedException | InterruptedException e) {
+      pending.add(DISCONNECTED);
+    }
+  }
+
+  public static class GuardedEventSet {
+
+    private final List<Event> events;
+    private final boolean resumeRequired;
+
+    private GuardedEventSet(List<Event> events, boolean resumeRequired) {
+      this.events = events;
+      this.resumeRequired = resumeRequired;
+    }
+
+    public List<Event> getEvents() {
+      return events;
+    }
+
+    public boolean isResumeRequired() {
+      return resumeRequired;
+    }
+
+  }
+
+}
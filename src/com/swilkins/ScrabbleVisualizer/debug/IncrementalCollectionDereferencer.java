@@ -0,0 +1,219 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.*;
+
+import java.util.*;
+
+// Dereferences collections by remembering, per collection identity, the elements it has
+// already materialized. A set whose size and modCount are unchanged is returned without
+// invoking anything; otherwise the collection is re-listed with toArray (one invocation and
+// one bulk read) and only elements not seen before are dereferenced. Elements are remembered
+// only while their dereferenced form cannot change (strings, and objects the DereferenceCache
+// still holds as IMMUTABLE); the rest are dereferenced again on every call, as before. Lists
+// are always re-listed, since set() does not bump modCount.
+public class IncrementalCollectionDereferencer implements Dereferencer {
+
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private static final String[] BACKING_FIELD_NAMES = {"map", "m"};
+
+  private final Debugger debugger;
+  private final Map<ReferenceType, VersionFields> versionFields = new HashMap<>();
+  private final LinkedHashMap<Long, Snapshot> snapshots;
+
+  public IncrementalCollectionDereferencer(Debugger debugger) {
+    this(debugger, DEFAULT_CAPACITY);
+  }
+
+  public IncrementalCollectionDereferencer(Debugger debugger, int capacity) {
+    this.debugger = debugger;
+    this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  @Override
+  public Object dereference(ObjectReference collection, ThreadReference thread) throws NoSuchMethodException {
+    long uniqueID = collection.uniqueID();
+    int[] version = readVersion(collection);
+    Snapshot previous = snapshots.get(uniqueID);
+    try {
+      if (previous != null && version != null && Arrays.equals(previous.version, version)) {
+        return previous.refresh(thread);
+      }
+      Snapshot snapshot = materialize(collection, thread, version, previous);
+      snapshots.put(uniqueID, snapshot);
+      return snapshot.values;
+    } catch (ObjectCollectedException e) {
+      snapshots.remove(uniqueID);
+      return materialize(collection, thread, version, null).values;
+    }
+  }
+
+  private Snapshot materialize(ObjectReference collection, ThreadReference thread, int[] version, Snapshot previous) throws NoSuchMethodException {
+    ArrayReference array = (ArrayReference) debugger.invoke(collection, thread, "toArray", null, null);
+    if (array == null) {
+      return new Snapshot(version, new ObjectReference[0], new Object[0], new boolean[0]);
+    }
+    debugger.referenceLifecycleManager.pin(array);
+    List<Value> elements = array.getValues();
+    int length = elements.size();
+    ObjectReference[] references = new ObjectReference[length];
+    Object[] values = new Object[length];
+    boolean[] remembered = new boolean[length];
+    Map<Long, Integer> previousIndices = previous != null ? previous.indexRemembered() : Collections.emptyMap();
+    for (int i = 0; i < length; i++) {
+      Value element = elements.get(i);
+      if (element instanceof ObjectReference) {
+        ObjectReference reference = (ObjectReference) element;
+        references[i] = reference;
+        Integer previousIndex = previousIndices.get(reference.uniqueID());
+        if (previousIndex != null && isRememberable(reference, previous.values[previousIndex])) {
+          values[i] = previous.values[previousIndex];
+          remembered[i] = true;
+          continue;
+        }
+      }
+      values[i] = debugger.dereferenceValue(thread, element);
+      remembered[i] = isRememberable(element, values[i]);
+    }
+    return new Snapshot(version, references, values, remembered);
+  }
+
+  private boolean isRememberable(Value element, Object value) {
+    if (value instanceof TruncatedValue) {
+      return false;
+    }
+    if (element instanceof StringReference) {
+      return true;
+    }
+    return element instanceof ObjectReference && debugger.dereferenceCache.holdsImmutable((ObjectReference) element);
+  }
+
+  // Reads [size, modCount] from the set or from the map backing it, or returns null when
+  // neither exposes them
+  private int[] readVersion(ObjectReference collection) {
+    VersionFields fields = versionFields.computeIfAbsent(collection.referenceType(), VersionFields::new);
+    if (!fields.set) {
+      return null;
+    }
+    ObjectReference holder = collection;
+    if (fields.size == null) {
+      if (fields.backing == null) {
+        return null;
+      }
+      Value backing = collection.getValue(fields.backing);
+      if (!(backing instanceof ObjectReference)) {
+        return null;
+      }
+      // Sets of one class can be backed by maps of different classes (a TreeSet by a TreeMap
+      // or by a sub-map view), so the fields are those of this particular backing map
+      holder = (ObjectReference) backing;
+      fields = versionFields.computeIfAbsent(holder.referenceType(), VersionFields::new);
+      if (fields.size == null) {
+        return null;
+      }
+    }
+    Map<Field, Value> values = holder.getValues(Arrays.asList(fields.size, fields.modCount));
+    return new int[]{
+            ((PrimitiveValue) values.get(fields.size)).intValue(),
+            ((PrimitiveValue) values.get(fields.modCount)).intValue()
+    };
+  }
+
+  private static Field intField(ReferenceType referenceType, String name) {
+    Field field = referenceType.fieldByName(name);
+    return field != null && field.typeName().equals("int") && !field.isStatic() ? field : null;
+  }
+
+  private static boolean isSet(ReferenceType referenceType) {
+    if (!(referenceType instanceof ClassType)) {
+      return false;
+    }
+    for (InterfaceType interfaceType : ((ClassType) referenceType).allInterfaces()) {
+      if (interfaceType.name().equals("java.util.Set")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // The size and modCount fields of one type (both null unless it has both), and for sets
+  // without them, the field holding the backing map
+  private static class VersionFields {
+
+    private final boolean set;
+    private Field size;
+    private Field modCount;
+    private Field backing;
+
+    private VersionFields(ReferenceType referenceType) {
+      set = isSet(referenceType);
+      size = intField(referenceType, "size");
+      modCount = intField(referenceType, "modCount");
+      if (size == null || modCount == null) {
+        size = modCount = null;
+        if (set) {
+          for (String name : BACKING_FIELD_NAMES) {
+            Field field = referenceType.fieldByName(name);
+            if (field != null && !field.isStatic()) {
+              backing = field;
+              break;
+            }
+          }
+        }
+      }
+    }
+
+  }
+
+  private class Snapshot {
+
+    private final int[] version;
+    private final ObjectReference[] references;
+    private Object[] values;
+    private final boolean[] remembered;
+
+    private Snapshot(int[] version, ObjectReference[] references, Object[] values, boolean[] remembered) {
+      this.version = version;
+      this.references = references;
+      this.values = values;
+      this.remembered = remembered;
+    }
+
+    private Map<Long, Integer> indexRemembered() {
+      Map<Long, Integer> indices = new HashMap<>();
+      for (int i = 0; i < references.length; i++) {
+        if (remembered[i]) {
+          indices.put(references[i].uniqueID(), i);
+        }
+      }
+      return indices;
+    }
+
+    // Re-dereferences only the elements whose values could have changed since, including those
+    // remembered before whose cache entries have since been invalidated or evicted. The array
+    // handed out last time may still be in use by a view, so it is copied, not updated.
+    private Object[] refresh(ThreadReference thread) throws NoSuchMethodException {
+      Object[] refreshed = null;
+      for (int i = 0; i < values.length; i++) {
+        if (!remembered[i] || !isRememberable(references[i], values[i])) {
+          if (refreshed == null) {
+            refreshed = values.clone();
+          }
+          refreshed[i] = debugger.dereferenceValue(thread, references[i]);
+          remembered[i] = isRememberable(references[i], refreshed[i]);
+        }
+      }
+      if (refreshed != null) {
+        values = refreshed;
+      }
+      return values;
+    }
+
+  }
+
+}
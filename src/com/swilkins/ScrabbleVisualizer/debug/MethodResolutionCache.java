@@ -0,0 +1,70 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Never invalidated: a loaded ReferenceType's methods do not change, as classes are not redefined
+public class MethodResolutionCache {
+
+  private final Map<MethodKey, Method> resolvedMethods = new HashMap<>();
+
+  public Method resolve(ReferenceType referenceType, String name, String signature, int arity) {
+    MethodKey key = new MethodKey(referenceType, name, signature, arity);
+    if (resolvedMethods.containsKey(key)) {
+      return resolvedMethods.get(key);
+    }
+    List<Method> candidates;
+    if (signature != null) {
+      candidates = referenceType.methodsByName(name, signature);
+    } else {
+      candidates = referenceType.methodsByName(name);
+    }
+    Method resolved = null;
+    for (Method candidate : candidates) {
+      if (candidate.argumentTypeNames().size() == arity) {
+        resolved = candidate;
+        break;
+      }
+    }
+    resolvedMethods.put(key, resolved);
+    return resolved;
+  }
+
+  private static class MethodKey {
+
+    private final ReferenceType referenceType;
+    private final String name;
+    private final String signature;
+    private final int arity;
+
+    private MethodKey(ReferenceType referenceType, String name, String signature, int arity) {
+      this.referenceType = referenceType;
+      this.name = name;
+      this.signature = signature;
+      this.arity = arity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      MethodKey that = (MethodKey) o;
+      return arity == that.arity &&
+              referenceType.equals(that.referenceType) &&
+              name.equals(that.name) &&
+              Objects.equals(signature, that.signature);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(referenceType, name, signature, arity);
+    }
+
+  }
+
+}
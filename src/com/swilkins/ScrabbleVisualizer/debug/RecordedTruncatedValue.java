@@ -0,0 +1,18 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+// A TruncatedValue read back from a trace. Only its string form survives recording, and it
+// cannot be expanded, since the target it referred to has exited.
+public class RecordedTruncatedValue {
+
+  private final String description;
+
+  public RecordedTruncatedValue(String description) {
+    this.description = description;
+  }
+
+  @Override
+  public String toString() {
+    return description;
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ObjectReference;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReferenceLifecycleManager {
+
+  private final Map<Long, ObjectReference> pinned = new HashMap<>();
+  private final Map<Long, ObjectReference> retained = new HashMap<>();
+  private final Map<Long, Integer> retainCounts = new HashMap<>();
+
+  public void pin(ObjectReference object) {
+    long uniqueID = object.uniqueID();
+    if (pinned.containsKey(uniqueID)) {
+      return;
+    }
+    if (!retained.containsKey(uniqueID)) {
+      disableCollection(object);
+    }
+    pinned.put(uniqueID, object);
+  }
+
+  public void retain(ObjectReference object) {
+    long uniqueID = object.uniqueID();
+    int retainCount = retainCounts.merge(uniqueID, 1, Integer::sum);
+    if (retainCount == 1) {
+      if (!pinned.containsKey(uniqueID)) {
+        disableCollection(object);
+      }
+      retained.put(uniqueID, object);
+    }
+  }
+
+  public void release(ObjectReference object) {
+    long uniqueID = object.uniqueID();
+    Integer retainCount = retainCounts.get(uniqueID);
+    if (retainCount == null) {
+      return;
+    }
+    if (retainCount > 1) {
+      retainCounts.put(uniqueID, retainCount - 1);
+      return;
+    }
+    retainCounts.remove(uniqueID);
+    retained.remove(uniqueID);
+    if (!pinned.containsKey(uniqueID)) {
+      enableCollection(object);
+    }
+  }
+
+  public void releaseSuspension() {
+    for (Map.Entry<Long, ObjectReference> entry : pinned.entrySet()) {
+      if (!retained.containsKey(entry.getKey())) {
+        enableCollection(entry.getValue());
+      }
+    }
+    pinned.clear();
+  }
+
+  public int getPinnedCount() {
+    return pinned.size();
+  }
+
+  public int getRetainedCount() {
+    return retained.size();
+  }
+
+  private void disableCollection(ObjectReference object) {
+    try {
+      object.disableCollection();
+    } catch (ObjectCollectedException ignored) {
+    }
+  }
+
+  private void enableCollection(ObjectReference object) {
+    try {
+      object.enableCollection();
+    } catch (ObjectCollectedException ignored) {
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ClassType;
+import com.sun.jdi.InterfaceType;
+import com.sun.jdi.ReferenceType;
+
+import java.util.*;
+
+public class ReferenceTypeResolver<T> {
+
+  private final Map<String, T> registryByName = new HashMap<>();
+  private final T defaultValue;
+  private final Map<ReferenceType, T> resolved = new HashMap<>();
+
+  public ReferenceTypeResolver(T defaultValue) {
+    this.defaultValue = defaultValue;
+  }
+
+  // Earlier resolutions may have matched a supertype of registeredClass, so they are all dropped
+  public void register(Class<?> registeredClass, T value) {
+    registryByName.put(registeredClass.getName(), value);
+    resolved.clear();
+  }
+
+  public T resolve(ReferenceType referenceType) {
+    if (resolved.containsKey(referenceType)) {
+      return resolved.get(referenceType);
+    }
+    T match = resolveFromSuperclasses(referenceType);
+    if (match == null) {
+      match = resolveFromInterfaces(referenceType);
+    }
+    if (match == null) {
+      match = defaultValue;
+    }
+    resolved.put(referenceType, match);
+    return match;
+  }
+
+  private T resolveFromSuperclasses(ReferenceType referenceType) {
+    ReferenceType current = referenceType;
+    while (current != null) {
+      T match = registryByName.get(current.name());
+      if (match != null) {
+        return match;
+      }
+      current = current instanceof ClassType ? ((ClassType) current).superclass() : null;
+    }
+    return null;
+  }
+
+  private T resolveFromInterfaces(ReferenceType referenceType) {
+    Deque<InterfaceType> pending = new ArrayDeque<>();
+    if (referenceType instanceof ClassType) {
+      pending.addAll(((ClassType) referenceType).allInterfaces());
+    } else if (referenceType instanceof InterfaceType) {
+      pending.addAll(((InterfaceType) referenceType).superinterfaces());
+    }
+    Set<InterfaceType> visited = new HashSet<>();
+    while (!pending.isEmpty()) {
+      InterfaceType interfaceType = pending.poll();
+      if (!visited.add(interfaceType)) {
+        continue;
+      }
+      T match = registryByName.get(interfaceType.name());
+      if (match != null) {
+        return match;
+      }
+      pending.addAll(interfaceType.superinterfaces());
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,53 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// What the DebuggerFrame should look like: the suspension to show (null when the
+// target is running) and which controls are enabled
+public class RenderSnapshot {
+
+  private final Frame frame;
+  private final Set<DebuggerControl> enabledControls;
+
+  public RenderSnapshot(Frame frame, Set<DebuggerControl> enabledControls) {
+    this.frame = frame;
+    this.enabledControls = Collections.unmodifiableSet(enabledControls.isEmpty() ? EnumSet.noneOf(DebuggerControl.class) : EnumSet.copyOf(enabledControls));
+  }
+
+  public Frame getFrame() {
+    return frame;
+  }
+
+  public Set<DebuggerControl> getEnabledControls() {
+    return enabledControls;
+  }
+
+  public static class Frame {
+
+    private final DebugClassLocation location;
+    private final Map<String, Object> dereferencedVariables;
+    private final Supplier<CompletableFuture<Map<String, Object>>> deferredVariables;
+
+    public Frame(DebugClassLocation location, Map<String, Object> dereferencedVariables, Supplier<CompletableFuture<Map<String, Object>>> deferredVariables) {
+      this.location = location;
+      this.dereferencedVariables = Collections.unmodifiableMap(new HashMap<>(dereferencedVariables));
+      this.deferredVariables = deferredVariables;
+    }
+
+    public DebugClassLocation getLocation() {
+      return location;
+    }
+
+    public Map<String, Object> getDereferencedVariables() {
+      return dereferencedVariables;
+    }
+
+    public Supplier<CompletableFuture<Map<String, Object>>> getDeferredVariables() {
+      return deferredVariables;
+    }
+
+  }
+
+}
@@ -5,6 +5,7 @@ import com.sun.jdi.connect.Connector;
 import com.swilkins.ScrabbleBase.Board.Location.Coordinates;
 import com.swilkins.ScrabbleBase.Board.Location.TilePlacement;
 import com.swilkins.ScrabbleBase.Board.State.BoardSquare;
+import com.swilkins.ScrabbleBase.Board.State.Multiplier;
 import com.swilkins.ScrabbleBase.Board.State.Tile;
 import com.swilkins.ScrabbleBase.Generation.Candidate;
 import com.swilkins.ScrabbleBase.Generation.CrossedTilePlacement;
@@ -12,25 +13,29 @@ import com.swilkins.ScrabbleBase.Generation.Direction;
 import com.swilkins.ScrabbleBase.Generation.Generator;
 import com.swilkins.ScrabbleVisualizer.executable.GeneratorTarget;
 
-import java.awt.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.IMMUTABLE;
+import static com.swilkins.ScrabbleVisualizer.debug.DereferenceCachePolicy.WATCHPOINT_INVALIDATED;
+
 public class ScrabbleBaseDebugger extends Debugger {
 
-  public static final Dimension ICON_DIMENSION = new Dimension(12, 12);
+  public static final int GENERATOR_BREAKPOINT_LINE = 247;
 
   public ScrabbleBaseDebugger() throws Exception {
-    super(GeneratorTarget.class, new ScrabbleBaseVisualizer());
+    super(GeneratorTarget.class);
   }
 
   @Override
-  protected void configureDebuggerModel() throws IOException, ClassNotFoundException {
+  protected void configureDebuggerModel() throws IOException {
+    debuggerModel.setClassPrepareFilterMode(ClassPrepareFilterMode.PACKAGE_PREFIX);
     debuggerModel.addDebugClassSourcesFromJar("../lib/scrabble-base-jar-with-dependencies.jar", null);
-    debuggerModel.getDebugClassSourceFor(Generator.class).setCached(true).addCompileTimeBreakpoints(247);
+    debuggerModel.getDebugClassSourceFor(Generator.class).setCached(true).addCompileTimeBreakpoints(GENERATOR_BREAKPOINT_LINE);
+    debuggerModel.setConstructionTarget(Candidate.class);
     debuggerModel.addDebugClassSource(GeneratorTarget.class, new DebugClassSource(true, 18) {
       @Override
       public String getContentsAsString() throws IOException {
@@ -40,38 +45,65 @@ public class ScrabbleBaseDebugger extends Debugger {
     });
   }
 
+  // Must be called before start. The Generator breakpoint then only suspends when condition,
+  // e.g. "placed.size() >= 4 && dir == DOWN", holds for its locals.
+  public ScrabbleBaseDebugger setGeneratorBreakpointCondition(String condition) {
+    debuggerModel.getDebugClassSourceFor(Generator.class).addConditionalBreakpoint(GENERATOR_BREAKPOINT_LINE, condition);
+    return this;
+  }
+
   @Override
   protected void configureDereferencers() {
     Dereferencer fromTileContainer = (tileWrapper, thread) -> standardDereference(tileWrapper, "getTile", thread);
-    dereferencerMap.put(BoardSquare.class, fromTileContainer);
-    dereferencerMap.put(TilePlacement.class, (tilePlacement, thread) -> new Object[]{
+    registerDereferencer(BoardSquare.class, fieldDereferencer((boardSquare, thread) -> new Object[]{
+            fromTileContainer.dereference(boardSquare, thread),
+            standardDereference(boardSquare, "getMultiplier", thread)
+    }, "tile", "multiplier"));
+    registerDereferencer(Multiplier.class, fieldDereferencer((multiplier, thread) -> new Object[]{
+            standardDereference(multiplier, "getLetterValue", thread),
+            standardDereference(multiplier, "getWordValue", thread)
+    }, "letter", "word"));
+    registerDereferencer(TilePlacement.class, fieldDereferencer((tilePlacement, thread) -> new Object[]{
             standardDereference(tilePlacement, "getX", thread),
             standardDereference(tilePlacement, "getY", thread),
             fromTileContainer.dereference(tilePlacement, thread)
-    });
-    dereferencerMap.put(Tile.class, (tile, thread) -> new Object[]{
+    }, "x", "y", "tile"));
+    registerDereferencer(Tile.class, fieldDereferencer((tile, thread) -> new Object[]{
             standardDereference(tile, "getLetter", thread),
             standardDereference(tile, "getLetterProxy", thread)
-    });
-    dereferencerMap.put(Direction.class, (direction, thread) -> {
+    }, "letter", "letterProxy"));
+    registerDereferencer(Direction.class, fieldDereferencer((direction, thread) -> {
       ObjectReference directionNameReference = (ObjectReference) invoke(direction, thread, "name", null, null);
       return toString.dereference(directionNameReference, thread);
-    });
-    dereferencerMap.put(Character.class, (character, thread) -> standardDereference(character, "charValue", thread));
-    dereferencerMap.put(Candidate.class, (candidate, thread) -> new Object[]{
-            standardDereference(candidate, "getScore", thread),
+    }, "name"));
+    registerDereferencer(Enum.class, fieldDereferencer(toString, "name"));
+    registerDereferencer(Character.class, fieldDereferencer((character, thread) -> standardDereference(character, "charValue", thread), "value"));
+    Dereferencer candidateScore = fieldDereferencer((candidate, thread) -> standardDereference(candidate, "getScore", thread), "score");
+    registerDereferencer(Candidate.class, (candidate, thread) -> new Object[]{
+            candidateScore.dereference(candidate, thread),
             toString.dereference(candidate, thread)
     });
-    dereferencerMap.put(Coordinates.class, (coordinates, thread) -> new Object[]{
+    registerDereferencer(Coordinates.class, fieldDereferencer((coordinates, thread) -> new Object[]{
             standardDereference(coordinates, "getX", thread),
             standardDereference(coordinates, "getY", thread)
-    });
-    dereferencerMap.put(CrossedTilePlacement.class, (crossedTilePlacement, thread) -> standardDereference(crossedTilePlacement, "getRoot", thread));
+    }, "x", "y"));
+    registerDereferencer(CrossedTilePlacement.class, fieldDereferencer((crossedTilePlacement, thread) -> standardDereference(crossedTilePlacement, "getRoot", thread), "root"));
+
+    registerDereferenceCachePolicy(BoardSquare.class, WATCHPOINT_INVALIDATED);
+    registerDereferenceCachePolicy(Multiplier.class, IMMUTABLE);
+    registerDereferenceCachePolicy(TilePlacement.class, IMMUTABLE);
+    registerDereferenceCachePolicy(Tile.class, WATCHPOINT_INVALIDATED);
+    registerDereferenceCachePolicy(Direction.class, IMMUTABLE);
+    registerDereferenceCachePolicy(Enum.class, IMMUTABLE);
+    registerDereferenceCachePolicy(Character.class, IMMUTABLE);
+    registerDereferenceCachePolicy(Candidate.class, IMMUTABLE);
+    registerDereferenceCachePolicy(Coordinates.class, IMMUTABLE);
+    registerDereferenceCachePolicy(CrossedTilePlacement.class, IMMUTABLE);
   }
 
   @Override
   protected void configureVirtualMachineLaunch(Map<String, Connector.Argument> arguments) {
-    arguments.get("options").setValue("-cp \".:../lib/scrabble-base-jar-with-dependencies.jar\"");
+    arguments.get("options").setValue("-cp \".:../lib/scrabble-base-jar-with-dependencies.jar\" " + getConditionalBreakpointOptions());
   }
 
 }
\ No newline at end of file
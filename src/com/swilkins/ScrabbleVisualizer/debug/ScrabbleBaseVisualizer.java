@@ -1,41 +1,65 @@
 package com.swilkins.ScrabbleVisualizer.debug;
 
+import com.swilkins.ScrabbleVisualizer.view.BoardView;
+import com.swilkins.ScrabbleVisualizer.view.CandidateListModel;
 import com.swilkins.ScrabbleVisualizer.view.DebuggerWatchView;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.border.MatteBorder;
 import java.awt.*;
 import java.net.URL;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_BOARD_DIMENSIONS;
 import static com.swilkins.ScrabbleBase.Board.Configuration.STANDARD_RACK_CAPACITY;
-import static com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseDebugger.ICON_DIMENSION;
-import static com.swilkins.ScrabbleVisualizer.utility.Utilities.createImageIconFrom;
 
 public class ScrabbleBaseVisualizer extends DebuggerWatchView {
 
+  private static final int RAW_TAB_INDEX = 1;
+  private static final int CANDIDATES_TAB_INDEX = 2;
+  private static final int CANDIDATE_LIMIT = 100;
+
   private JTabbedPane tabbedPane;
 
-  private final JLabel[][] cells = new JLabel[STANDARD_BOARD_DIMENSIONS][STANDARD_BOARD_DIMENSIONS];
-  private JLabel currentCell;
+  // What the updaters have built up for the next flush to the board view
+  private BoardView.Cell[][] pendingCells = createCells(STANDARD_BOARD_DIMENSIONS);
+  private BoardView.Cell currentCell;
 
   private final JLabel[] rack = new JLabel[STANDARD_RACK_CAPACITY];
 
-  private final Map<String, ImageIcon> directionIcons = new HashMap<>();
-
-  private JPanel boardView;
+  private BoardView boardView;
 
-  private final JTextArea candidates = new JTextArea();
+  private final CandidateListModel candidates = new CandidateListModel();
 
   private void createIcon(String name) {
     URL url = getClass().getResource(String.format("../resource/icons/%s.png", name));
-    directionIcons.put(name, createImageIconFrom(url, ICON_DIMENSION));
+    if (url != null) {
+      boardView.setGlyph(name, new ImageIcon(url).getImage());
+    }
+  }
+
+  private static BoardView.Cell[][] createCells(int dimensions) {
+    BoardView.Cell[][] cells = new BoardView.Cell[dimensions][dimensions];
+    for (int y = 0; y < dimensions; y++) {
+      for (int x = 0; x < dimensions; x++) {
+        cells[y][x] = new BoardView.Cell();
+      }
+    }
+    return cells;
+  }
+
+  private static String multiplierRepresentation(Object[] components) {
+    int letter = (int) components[0];
+    int word = (int) components[1];
+    if (word > 1) {
+      return word + "W";
+    } else if (letter > 1) {
+      return letter + "L";
+    }
+    return null;
   }
 
   private String tileRepresentation(Object[] components) {
@@ -50,36 +74,23 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
     return display;
   }
 
-  private JLabel cellRepresentation(Object[] coordinates) {
-    return cells[(int) coordinates[1]][(int) coordinates[0]];
+  private BoardView.Cell cellRepresentation(Object[] coordinates) {
+    return pendingCells[(int) coordinates[1]][(int) coordinates[0]];
   }
 
   @Override
   public void initialize(Dimension initialDimension) {
-    createIcon("up");
-    createIcon("down");
-    createIcon("left");
-    createIcon("right");
-
     setBackground(Color.WHITE);
     setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
-    boardView = new JPanel(new GridLayout(STANDARD_BOARD_DIMENSIONS, STANDARD_BOARD_DIMENSIONS, 0, 0));
-    boardView.setBackground(Color.WHITE);
+    boardView = new BoardView(STANDARD_BOARD_DIMENSIONS);
     int boardViewSize = initialDimension.height;
     boardView.setPreferredSize(new Dimension(boardViewSize, boardViewSize));
     boardView.setBorder(new EmptyBorder(5, 9, 3, 0));
-    for (int y = 0; y < STANDARD_BOARD_DIMENSIONS; y++) {
-      for (int x = 0; x < STANDARD_BOARD_DIMENSIONS; x++) {
-        JLabel cell = new JLabel("", SwingConstants.CENTER);
-        cell.setOpaque(true);
-        cell.setBackground(Color.WHITE);
-        int resolvedTop = y == 0 ? 1 : 0;
-        int resolvedLeft = x == 0 ? 1 : 0;
-        cell.setBorder(new MatteBorder(resolvedTop, resolvedLeft, 1, 1, Color.BLACK));
-        cells[y][x] = cell;
-        boardView.add(cell);
-      }
-    }
+
+    createIcon("up");
+    createIcon("down");
+    createIcon("left");
+    createIcon("right");
 
     boardView.setEnabled(false);
     add(boardView);
@@ -117,12 +128,26 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
     scrollPane = new JScrollPane(rawWatched);
     scrollPane.setBorder(BorderFactory.createEmptyBorder());
     tabbedPane.addTab("Raw", scrollPane);
+    tabbedPane.addChangeListener(e -> {
+      if (isRawViewVisible()) {
+        showRawVariables();
+      }
+    });
 
-    candidates.setEditable(false);
-    candidates.setHighlighter(null);
-    scrollPane = new JScrollPane(candidates);
+    // A fixed cell height lets the list lay out and paint only the visible rows; widths are
+    // still measured, so long candidates scroll horizontally rather than being clipped
+    JList<String> candidateList = new JList<>(candidates);
+    candidateList.setFixedCellHeight(candidateList.getFontMetrics(candidateList.getFont()).getHeight() + 2);
+    JCheckBox candidateLimit = new JCheckBox(String.format("Top %d only", CANDIDATE_LIMIT));
+    candidateLimit.setBackground(Color.WHITE);
+    candidateLimit.addItemListener(e -> candidates.setLimit(candidateLimit.isSelected() ? CANDIDATE_LIMIT : 0));
+    JPanel candidatesView = new JPanel(new BorderLayout());
+    candidatesView.setBackground(Color.WHITE);
+    candidatesView.add(candidateLimit, BorderLayout.NORTH);
+    scrollPane = new JScrollPane(candidateList);
     scrollPane.setBorder(BorderFactory.createEmptyBorder());
-    tabbedPane.addTab("Candidates (0)", scrollPane);
+    candidatesView.add(scrollPane, BorderLayout.CENTER);
+    tabbedPane.addTab("Candidates (0)", candidatesView);
 
     JTextArea outputView = new JTextArea();
     outputView.setEditable(false);
@@ -144,16 +169,27 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
     };
   }
 
+  @Override
+  public boolean isRawViewVisible() {
+    return tabbedPane != null && tabbedPane.getSelectedIndex() == RAW_TAB_INDEX;
+  }
+
   @Override
   protected void registerUpdaters() {
     registerUpdater((loc, args) -> {
       Object[] rows = (Object[]) args.next();
-      for (int y = 0; y < STANDARD_BOARD_DIMENSIONS; y++) {
+      if (rows.length != pendingCells.length) {
+        pendingCells = createCells(rows.length);
+        currentCell = null;
+      }
+      for (int y = 0; y < rows.length; y++) {
         Object[] row = (Object[]) rows[y];
-        for (int x = 0; x < STANDARD_BOARD_DIMENSIONS; x++) {
-          Object[] components = (Object[]) row[x];
+        for (int x = 0; x < rows.length; x++) {
+          Object[] square = (Object[]) row[x];
+          BoardView.Cell target = pendingCells[y][x];
+          target.setMultiplier(multiplierRepresentation((Object[]) square[1]));
+          Object[] components = (Object[]) square[0];
           if (components != null) {
-            JLabel target = cells[y][x];
             target.setText(tileRepresentation(components));
             target.setBackground(Color.LIGHT_GRAY);
           }
@@ -162,9 +198,9 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
     }, "board");
 
     registerUpdater((loc, args) -> {
-      currentCell = cells[(int) args.next()][(int) args.next()];
+      currentCell = pendingCells[(int) args.next()][(int) args.next()];
       currentCell.setBackground(Color.YELLOW);
-      currentCell.setIcon(directionIcons.get(args.next().toString()));
+      currentCell.setGlyph(args.next().toString());
     }, "y", "x", "dir");
 
     registerUpdater((loc, args) -> {
@@ -177,12 +213,12 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
       Object[] placements = (Object[]) args.next();
       for (Object placement : placements) {
         Object[] components = (Object[]) placement;
-        JLabel cell = cellRepresentation(components);
+        BoardView.Cell cell = cellRepresentation(components);
         cell.setText(tileRepresentation((Object[]) components[2]));
         if (loc.getLineNumber() == 203) {
           cell.setBackground(Color.GREEN);
-          if (cell.equals(currentCell)) {
-            cell.setIcon(null);
+          if (cell == currentCell) {
+            cell.setGlyph(null);
           }
         }
       }
@@ -199,27 +235,26 @@ public class ScrabbleBaseVisualizer extends DebuggerWatchView {
     }, "rack");
 
     registerUpdater((loc, args) -> {
-      Object[] all = (Object[]) args.next();
-      tabbedPane.setTitleAt(2, String.format("Candidates (%d)", all.length));
-      StringBuilder builder = new StringBuilder();
-      Arrays.sort(all, Comparator.comparingInt(candidate -> ((int) ((Object[]) candidate)[0])).reversed());
-      for (Object candidate : all) {
-        builder.append(((Object[]) candidate)[1]).append("\n");
-      }
-      candidates.setText(builder.toString());
+      candidates.update((Object[]) args.next());
+      tabbedPane.setTitleAt(CANDIDATES_TAB_INDEX, String.format("Candidates (%d)", candidates.getTotalSize()));
     }, "all");
   }
 
+  @Override
+  public void updateFrom(DebugClassLocation location, Map<String, Object> dereferencedVariables, Supplier<CompletableFuture<Map<String, Object>>> deferredVariables) {
+    super.updateFrom(location, dereferencedVariables, deferredVariables);
+    boardView.update(pendingCells);
+  }
+
   @Override
   public void clean() {
-    for (int y = 0; y < STANDARD_BOARD_DIMENSIONS; y++) {
-      for (int x = 0; x < STANDARD_BOARD_DIMENSIONS; x++) {
-        JLabel cell = cells[y][x];
-        cell.setBackground(Color.WHITE);
-        cell.setIcon(null);
-        cell.setText(null);
+    // The board keeps showing the last snapshot; the next update diffs against it
+    for (BoardView.Cell[] row : pendingCells) {
+      for (BoardView.Cell cell : row) {
+        cell.reset();
       }
     }
+    currentCell = null;
     rawWatchedName.setText("");
     rawWatchedValue.setText("");
     for (int i = 0; i < STANDARD_RACK_CAPACITY; i++) {
@@ -0,0 +1,69 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ThreadReference;
+
+import java.util.Arrays;
+
+import static com.swilkins.ScrabbleVisualizer.utility.Utilities.primitiveArrayToString;
+
+public class TruncatedValue {
+
+  private final ObjectReference value;
+  private final ThreadReference thread;
+  private final TruncationReason reason;
+  private final long suspension;
+  private final String typeName;
+  private final Object partial;
+  private final int omitted;
+
+  public TruncatedValue(ObjectReference value, ThreadReference thread, TruncationReason reason, long suspension) {
+    this(value, thread, reason, suspension, null, 0);
+  }
+
+  public TruncatedValue(ObjectReference value, ThreadReference thread, TruncationReason reason, long suspension, Object partial, int omitted) {
+    this.value = value;
+    this.thread = thread;
+    this.reason = reason;
+    this.suspension = suspension;
+    this.typeName = value.referenceType().name();
+    this.partial = partial;
+    this.omitted = omitted;
+  }
+
+  public ObjectReference getValue() {
+    return value;
+  }
+
+  public ThreadReference getThread() {
+    return thread;
+  }
+
+  public TruncationReason getReason() {
+    return reason;
+  }
+
+  public long getSuspension() {
+    return suspension;
+  }
+
+  public Object getPartial() {
+    return partial;
+  }
+
+  public int getOmitted() {
+    return omitted;
+  }
+
+  @Override
+  public String toString() {
+    String placeholder = String.format("<%s: %s@%d>", reason.getDescription(), typeName, value.uniqueID());
+    if (partial instanceof Object[]) {
+      return String.format("%s %s (%d more)", Arrays.deepToString((Object[]) partial), placeholder, omitted);
+    } else if (partial != null) {
+      return String.format("%s %s (%d more)", primitiveArrayToString(partial), placeholder, omitted);
+    }
+    return placeholder;
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.swilkins.ScrabbleVisualizer.debug;
+
+public enum TruncationReason {
+
+  CYCLE("cycle"),
+  DEPTH("depth limit"),
+  ELEMENTS("element limit"),
+  MIRRORS("mirror limit");
+
+  private final String description;
+
+  TruncationReason(String description) {
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+}
@@ -0,0 +1,44 @@
+package com.swilkins.ScrabbleVisualizer.debug.agent;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Runs inside the target. Lines carrying a conditional breakpoint are instrumented
+// to call check, and hit is only reached when the condition holds; the debugger
+// keeps its breakpoint on hit and presents the instrumented frame instead.
+public class Agent {
+
+  public static final String HIT_METHOD_NAME = "hit";
+  public static final int HIT_FRAME_DEPTH = 2;
+
+  private static ConditionalBreakpoint[] conditionalBreakpoints = new ConditionalBreakpoint[0];
+
+  // arguments is the path of a file of tab separated class name, line number and condition lines
+  public static void premain(String arguments, Instrumentation instrumentation) throws IOException {
+    List<String> lines = Files.readAllLines(Paths.get(arguments));
+    conditionalBreakpoints = new ConditionalBreakpoint[lines.size()];
+    for (int id = 0; id < lines.size(); id++) {
+      String[] components = lines.get(id).split("\t", 3);
+      try {
+        Condition condition = Condition.parse(components[2]);
+        conditionalBreakpoints[id] = new ConditionalBreakpoint(id, components[0], Integer.parseInt(components[1]), condition);
+      } catch (IllegalArgumentException e) {
+        System.err.println(e.getMessage());
+      }
+    }
+    instrumentation.addTransformer(new ConditionalBreakpointTransformer(conditionalBreakpoints));
+  }
+
+  public static void check(int id, int site, Object[] locals) {
+    if (conditionalBreakpoints[id].test(site, locals)) {
+      hit();
+    }
+  }
+
+  public static void hit() {
+  }
+
+}
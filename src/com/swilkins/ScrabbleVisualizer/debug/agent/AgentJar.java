@@ -0,0 +1,99 @@
+package com.swilkins.ScrabbleVisualizer.debug.agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+// Debugger side: packages this package's classes, along with the ASM classes the
+// transformer needs, as an agent jar and writes the conditions it reads, producing
+// the target's launch options
+public class AgentJar {
+
+  private static final Class<?>[] PACKAGE_ANCHORS = {Agent.class, ClassReader.class, ClassNode.class};
+
+  private AgentJar() {
+  }
+
+  // conditions maps class names to line numbers to condition source
+  public static String createLaunchOptions(Map<String, Map<Integer, String>> conditions) throws IOException {
+    Path directory = Files.createTempDirectory("conditional-breakpoints");
+    directory.toFile().deleteOnExit();
+
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, Map<Integer, String>> classConditions : conditions.entrySet()) {
+      for (Map.Entry<Integer, String> condition : classConditions.getValue().entrySet()) {
+        lines.add(String.format("%s\t%d\t%s", classConditions.getKey(), condition.getKey(), condition.getValue().replace('\n', ' ')));
+      }
+    }
+    Path conditionsPath = directory.resolve("conditions.tsv");
+    Files.write(conditionsPath, lines);
+    conditionsPath.toFile().deleteOnExit();
+
+    Path jarPath = directory.resolve("agent.jar");
+    writeJar(jarPath);
+    jarPath.toFile().deleteOnExit();
+
+    return String.format("-javaagent:%s=%s", jarPath, conditionsPath);
+  }
+
+  private static void writeJar(Path jarPath) throws IOException {
+    Manifest manifest = new Manifest();
+    Attributes attributes = manifest.getMainAttributes();
+    attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    attributes.put(new Attributes.Name("Premain-Class"), Agent.class.getName());
+
+    try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarPath), manifest)) {
+      for (Class<?> anchor : PACKAGE_ANCHORS) {
+        String packagePath = anchor.getPackageName().replace('.', '/');
+        for (String classFile : listClassFiles(anchor)) {
+          jar.putNextEntry(new JarEntry(packagePath + "/" + classFile));
+          try (InputStream classBytes = anchor.getResourceAsStream(classFile)) {
+            classBytes.transferTo(jar);
+          }
+          jar.closeEntry();
+        }
+      }
+    }
+  }
+
+  // The class files in anchor's package, whether it was loaded from a directory or a jar
+  private static List<String> listClassFiles(Class<?> anchor) throws IOException {
+    String packagePath = anchor.getPackageName().replace('.', '/');
+    List<String> classFiles = new ArrayList<>();
+    try {
+      Path codeSource = Paths.get(anchor.getProtectionDomain().getCodeSource().getLocation().toURI());
+      Path packageDirectory;
+      FileSystem jarFileSystem = null;
+      if (Files.isDirectory(codeSource)) {
+        packageDirectory = codeSource.resolve(packagePath);
+      } else {
+        jarFileSystem = FileSystems.newFileSystem(codeSource, (ClassLoader) null);
+        packageDirectory = jarFileSystem.getPath(packagePath);
+      }
+      try (Stream<Path> files = Files.list(packageDirectory)) {
+        files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".class")).forEach(classFiles::add);
+      } finally {
+        if (jarFileSystem != null) {
+          jarFileSystem.close();
+        }
+      }
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+    return classFiles;
+  }
+
+}
@@ -0,0 +1,720 @@
+package com.swilkins.ScrabbleVisualizer.debug.agent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+// A breakpoint predicate, parsed once and evaluated against the locals the
+// instrumented method hands to Agent.check. Supports literals, locals, this,
+// field reads, method calls, array indexing, !, &&, ||, comparisons and + - * /.
+// A bare name that is not a local resolves to a static field of the breakpoint's
+// class or, when compared against a value, of that value's class (dir == LEFT).
+public class Condition {
+
+  private final String source;
+  private final Node root;
+  private final List<String> localNames = new ArrayList<>();
+  private Class<?> declaringClass;
+
+  private Condition(String source) {
+    this.source = source;
+    Parser parser = new Parser();
+    root = parser.parseOr();
+    parser.expectEnd();
+    root.collectLocalNames(localNames);
+  }
+
+  public static Condition parse(String source) {
+    return new Condition(source);
+  }
+
+  // Names that may refer to locals; the instrumented method passes whichever of these are visible
+  public List<String> getLocalNames() {
+    return localNames;
+  }
+
+  void setDeclaringClass(Class<?> declaringClass) {
+    this.declaringClass = declaringClass;
+  }
+
+  public boolean test(Object[] locals, String[] visibleNames) {
+    Object result = root.evaluate(new Scope(locals, visibleNames));
+    if (!(result instanceof Boolean)) {
+      throw new IllegalStateException(String.format("Condition %s evaluated to %s, not a boolean.", source, result));
+    }
+    return (Boolean) result;
+  }
+
+  @Override
+  public String toString() {
+    return source;
+  }
+
+  private class Scope {
+
+    private final Object[] locals;
+    private final String[] names;
+
+    private Scope(Object[] locals, String[] names) {
+      this.locals = locals;
+      this.names = names;
+    }
+
+    private boolean isVisible(String name) {
+      for (String visible : names) {
+        if (visible.equals(name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private Object get(String name) {
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].equals(name)) {
+          return locals[i];
+        }
+      }
+      throw new IllegalStateException(String.format("%s is not visible.", name));
+    }
+
+  }
+
+  private static final Object UNRESOLVED = new Object();
+
+  private interface Node {
+
+    Object evaluate(Scope scope);
+
+    default void collectLocalNames(List<String> localNames) {
+    }
+
+  }
+
+  private static class Literal implements Node {
+
+    private final Object value;
+
+    private Literal(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      return value;
+    }
+
+  }
+
+  private class Name implements Node {
+
+    private final String name;
+    // Looked up once per class, since a line's condition may be evaluated on every hit
+    private final ClassValue<Optional<Field>> staticFields = new ClassValue<Optional<Field>>() {
+      @Override
+      protected Optional<Field> computeValue(Class<?> type) {
+        return Optional.ofNullable(findField(type, name, true));
+      }
+    };
+    private volatile Object finalStaticValue = UNRESOLVED;
+
+    private Name(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      if (scope.isVisible(name)) {
+        return scope.get(name);
+      }
+      if (finalStaticValue != UNRESOLVED || declaringClass == null) {
+        return finalStaticValue;
+      }
+      Field field = staticFields.get(declaringClass).orElse(null);
+      if (field == null) {
+        return UNRESOLVED;
+      }
+      Object value = readField(field, null);
+      // Only a final field's value can be kept; any other may change between hits
+      if (Modifier.isFinal(field.getModifiers())) {
+        finalStaticValue = value;
+      }
+      return value;
+    }
+
+    private Object resolveAgainst(Object other) {
+      if (other == null) {
+        return UNRESOLVED;
+      }
+      Field field = staticFields.get(other.getClass()).orElse(null);
+      return field != null ? readField(field, null) : UNRESOLVED;
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      if (!localNames.contains(name)) {
+        localNames.add(name);
+      }
+    }
+
+  }
+
+  private static class FieldRead implements Node {
+
+    private final Node target;
+    private final String name;
+    private volatile Class<?> cachedClass;
+    private volatile Field cachedField;
+
+    private FieldRead(Node target, String name) {
+      this.target = target;
+      this.name = name;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      Object value = requireNonNull(target.evaluate(scope), target);
+      if (value.getClass().isArray() && name.equals("length")) {
+        return java.lang.reflect.Array.getLength(value);
+      }
+      Class<?> clazz = value.getClass();
+      Field field = cachedField;
+      if (cachedClass != clazz) {
+        field = findField(clazz, name, false);
+        if (field == null) {
+          throw new IllegalStateException(String.format("%s has no field %s.", clazz.getName(), name));
+        }
+        cachedField = field;
+        cachedClass = clazz;
+      }
+      return readField(field, value);
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      target.collectLocalNames(localNames);
+    }
+
+  }
+
+  private static class Call implements Node {
+
+    private final Node target;
+    private final String name;
+    private final Node[] arguments;
+    private volatile Class<?> cachedClass;
+    private volatile Method cachedMethod;
+
+    private Call(Node target, String name, Node[] arguments) {
+      this.target = target;
+      this.name = name;
+      this.arguments = arguments;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      Object value = requireNonNull(target.evaluate(scope), target);
+      Object[] argumentValues = new Object[arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        argumentValues[i] = arguments[i].evaluate(scope);
+      }
+      Class<?> clazz = value.getClass();
+      Method method = cachedMethod;
+      if (cachedClass != clazz) {
+        method = findMethod(clazz, name, arguments.length);
+        cachedMethod = method;
+        cachedClass = clazz;
+      }
+      try {
+        return method.invoke(value, argumentValues);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(String.format("Could not invoke %s on %s.", name, clazz.getName()), e);
+      }
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      target.collectLocalNames(localNames);
+      for (Node argument : arguments) {
+        argument.collectLocalNames(localNames);
+      }
+    }
+
+  }
+
+  private static class Index implements Node {
+
+    private final Node target;
+    private final Node index;
+
+    private Index(Node target, Node index) {
+      this.target = target;
+      this.index = index;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      Object array = requireNonNull(target.evaluate(scope), target);
+      return java.lang.reflect.Array.get(array, (int) toLong(requireNonNull(index.evaluate(scope), index)));
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      target.collectLocalNames(localNames);
+      index.collectLocalNames(localNames);
+    }
+
+  }
+
+  private static class Not implements Node {
+
+    private final Node operand;
+
+    private Not(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      return !(Boolean) operand.evaluate(scope);
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      operand.collectLocalNames(localNames);
+    }
+
+  }
+
+  private static class Negate implements Node {
+
+    private final Node operand;
+
+    private Negate(Node operand) {
+      this.operand = operand;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      Object value = requireNonNull(operand.evaluate(scope), operand);
+      if (value instanceof Double || value instanceof Float) {
+        return -((Number) value).doubleValue();
+      }
+      return -toLong(value);
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      operand.collectLocalNames(localNames);
+    }
+
+  }
+
+  private static class Binary implements Node {
+
+    private final String operator;
+    private final Node left;
+    private final Node right;
+
+    private Binary(String operator, Node left, Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public Object evaluate(Scope scope) {
+      switch (operator) {
+        case "&&":
+          return (Boolean) left.evaluate(scope) && (Boolean) right.evaluate(scope);
+        case "||":
+          return (Boolean) left.evaluate(scope) || (Boolean) right.evaluate(scope);
+      }
+      Object leftValue = left.evaluate(scope);
+      Object rightValue = right.evaluate(scope);
+      if (leftValue == UNRESOLVED && left instanceof Name) {
+        leftValue = ((Name) left).resolveAgainst(rightValue);
+      }
+      if (rightValue == UNRESOLVED && right instanceof Name) {
+        rightValue = ((Name) right).resolveAgainst(leftValue);
+      }
+      leftValue = requireResolved(leftValue, left);
+      rightValue = requireResolved(rightValue, right);
+      switch (operator) {
+        case "==":
+          return isEqual(leftValue, rightValue);
+        case "!=":
+          return !isEqual(leftValue, rightValue);
+        case "+":
+          if (leftValue instanceof String || rightValue instanceof String) {
+            return String.valueOf(leftValue) + rightValue;
+          }
+      }
+      // Every remaining operator needs both values
+      leftValue = requireNonNull(leftValue, left);
+      rightValue = requireNonNull(rightValue, right);
+      switch (operator) {
+        case "<":
+          return compare(leftValue, rightValue) < 0;
+        case "<=":
+          return compare(leftValue, rightValue) <= 0;
+        case ">":
+          return compare(leftValue, rightValue) > 0;
+        case ">=":
+          return compare(leftValue, rightValue) >= 0;
+        case "+":
+        case "-":
+        case "*":
+        case "/":
+          return arithmetic(operator, leftValue, rightValue);
+        default:
+          throw new IllegalStateException(String.format("Unknown operator %s.", operator));
+      }
+    }
+
+    @Override
+    public void collectLocalNames(List<String> localNames) {
+      left.collectLocalNames(localNames);
+      right.collectLocalNames(localNames);
+    }
+
+  }
+
+  private static Object requireResolved(Object value, Node node) {
+    if (value == UNRESOLVED) {
+      throw new IllegalStateException(String.format("%s cannot be resolved.", ((Name) node).name));
+    }
+    return value;
+  }
+
+  // Null is an ordinary operand of == != and string +; only dereferences and arithmetic reject it
+  private static Object requireNonNull(Object value, Node node) {
+    value = requireResolved(value, node);
+    if (value == null) {
+      throw new NullPointerException(node instanceof Name ? String.format("%s is null.", ((Name) node).name) : null);
+    }
+    return value;
+  }
+
+  private static boolean isNumeric(Object value) {
+    return value instanceof Number || value instanceof Character;
+  }
+
+  private static boolean isFloating(Object value) {
+    return value instanceof Double || value instanceof Float;
+  }
+
+  private static long toLong(Object value) {
+    if (value instanceof Character) {
+      return (Character) value;
+    }
+    return ((Number) value).longValue();
+  }
+
+  private static double toDouble(Object value) {
+    if (value instanceof Character) {
+      return (Character) value;
+    }
+    return ((Number) value).doubleValue();
+  }
+
+  private static boolean isEqual(Object left, Object right) {
+    if (isNumeric(left) && isNumeric(right)) {
+      return compare(left, right) == 0;
+    }
+    return Objects.equals(left, right);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object left, Object right) {
+    if (isNumeric(left) && isNumeric(right)) {
+      if (isFloating(left) || isFloating(right)) {
+        return Double.compare(toDouble(left), toDouble(right));
+      }
+      return Long.compare(toLong(left), toLong(right));
+    }
+    return ((Comparable<Object>) left).compareTo(right);
+  }
+
+  private static Object arithmetic(String operator, Object left, Object right) {
+    if (isFloating(left) || isFloating(right)) {
+      double l = toDouble(left), r = toDouble(right);
+      switch (operator) {
+        case "+":
+          return l + r;
+        case "-":
+          return l - r;
+        case "*":
+          return l * r;
+        default:
+          return l / r;
+      }
+    }
+    long l = toLong(left), r = toLong(right);
+    switch (operator) {
+      case "+":
+        return l + r;
+      case "-":
+        return l - r;
+      case "*":
+        return l * r;
+      default:
+        return l / r;
+    }
+  }
+
+  private static Field findField(Class<?> clazz, String name, boolean requireStatic) {
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(name) && (!requireStatic || Modifier.isStatic(field.getModifiers()))) {
+          field.setAccessible(true);
+          return field;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static Object readField(Field field, Object target) {
+    try {
+      return field.get(target);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(String.format("Could not read %s.", field), e);
+    }
+  }
+
+  // Public methods are preferred, so that calls on JDK collections need no deep reflection
+  private static Method findMethod(Class<?> clazz, String name, int arity) {
+    for (Method method : clazz.getMethods()) {
+      if (method.getName().equals(name) && method.getParameterCount() == arity) {
+        Method accessible = findPublicDeclaration(clazz, method);
+        if (accessible != null) {
+          return accessible;
+        }
+      }
+    }
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        if (method.getName().equals(name) && method.getParameterCount() == arity) {
+          method.setAccessible(true);
+          return method;
+        }
+      }
+    }
+    throw new IllegalStateException(String.format("%s has no method %s with %d arguments.", clazz.getName(), name, arity));
+  }
+
+  // The same method as declared by a public class or interface above clazz (List.size for
+  // an ImmutableCollections.ListN, say), or null if there is none
+  private static Method findPublicDeclaration(Class<?> clazz, Method method) {
+    if (clazz == null) {
+      return null;
+    }
+    if (Modifier.isPublic(clazz.getModifiers())) {
+      try {
+        Method declared = clazz.getMethod(method.getName(), method.getParameterTypes());
+        if (Modifier.isPublic(declared.getDeclaringClass().getModifiers())) {
+          return declared;
+        }
+      } catch (NoSuchMethodException ignored) {
+      }
+    }
+    for (Class<?> anInterface : clazz.getInterfaces()) {
+      Method declared = findPublicDeclaration(anInterface, method);
+      if (declared != null) {
+        return declared;
+      }
+    }
+    return findPublicDeclaration(clazz.getSuperclass(), method);
+  }
+
+  private class Parser {
+
+    private int position = 0;
+
+    private Node parseOr() {
+      Node node = parseAnd();
+      while (accept("||")) {
+        node = new Binary("||", node, parseAnd());
+      }
+      return node;
+    }
+
+    private Node parseAnd() {
+      Node node = parseComparison();
+      while (accept("&&")) {
+        node = new Binary("&&", node, parseComparison());
+      }
+      return node;
+    }
+
+    private Node parseComparison() {
+      Node node = parseAdditive();
+      for (String operator : new String[]{"==", "!=", "<=", ">=", "<", ">"}) {
+        if (accept(operator)) {
+          return new Binary(operator, node, parseAdditive());
+        }
+      }
+      return node;
+    }
+
+    private Node parseAdditive() {
+      Node node = parseMultiplicative();
+      while (true) {
+        if (accept("+")) {
+          node = new Binary("+", node, parseMultiplicative());
+        } else if (accept("-")) {
+          node = new Binary("-", node, parseMultiplicative());
+        } else {
+          return node;
+        }
+      }
+    }
+
+    private Node parseMultiplicative() {
+      Node node = parseUnary();
+      while (true) {
+        if (accept("*")) {
+          node = new Binary("*", node, parseUnary());
+        } else if (accept("/")) {
+          node = new Binary("/", node, parseUnary());
+        } else {
+          return node;
+        }
+      }
+    }
+
+    private Node parseUnary() {
+      if (accept("!")) {
+        return new Not(parseUnary());
+      }
+      if (accept("-")) {
+        return new Negate(parseUnary());
+      }
+      return parsePostfix(parsePrimary());
+    }
+
+    private Node parsePostfix(Node node) {
+      while (true) {
+        if (accept(".")) {
+          String name = parseIdentifier();
+          if (accept("(")) {
+            List<Node> arguments = new ArrayList<>();
+            if (!accept(")")) {
+              do {
+                arguments.add(parseOr());
+              } while (accept(","));
+              expect(")");
+            }
+            node = new Call(node, name, arguments.toArray(new Node[0]));
+          } else {
+            node = new FieldRead(node, name);
+          }
+        } else if (accept("[")) {
+          Node index = parseOr();
+          expect("]");
+          node = new Index(node, index);
+        } else {
+          return node;
+        }
+      }
+    }
+
+    private Node parsePrimary() {
+      skipWhitespace();
+      if (accept("(")) {
+        Node node = parseOr();
+        expect(")");
+        return node;
+      }
+      if (position >= source.length()) {
+        throw error("Unexpected end of condition");
+      }
+      char c = source.charAt(position);
+      if (c == '\'') {
+        char value = source.charAt(position + 1);
+        position += 2;
+        expect("'");
+        return new Literal(value);
+      }
+      if (c == '"') {
+        int end = source.indexOf('"', position + 1);
+        if (end == -1) {
+          throw error("Unterminated string");
+        }
+        String value = source.substring(position + 1, end);
+        position = end + 1;
+        return new Literal(value);
+      }
+      if (Character.isDigit(c)) {
+        int start = position;
+        while (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+          position++;
+        }
+        String number = source.substring(start, position);
+        return new Literal(number.contains(".") ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number));
+      }
+      String identifier = parseIdentifier();
+      switch (identifier) {
+        case "true":
+          return new Literal(true);
+        case "false":
+          return new Literal(false);
+        case "null":
+          return new Literal(null);
+        default:
+          return new Name(identifier);
+      }
+    }
+
+    private String parseIdentifier() {
+      skipWhitespace();
+      int start = position;
+      while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+        position++;
+      }
+      if (start == position || !Character.isJavaIdentifierStart(source.charAt(start))) {
+        throw error("Expected an identifier");
+      }
+      return source.substring(start, position);
+    }
+
+    private boolean accept(String token) {
+      skipWhitespace();
+      if (!source.startsWith(token, position)) {
+        return false;
+      }
+      position += token.length();
+      return true;
+    }
+
+    private void expect(String token) {
+      if (!accept(token)) {
+        throw error(String.format("Expected %s", token));
+      }
+    }
+
+    private void expectEnd() {
+      skipWhitespace();
+      if (position != source.length()) {
+        throw error("Unexpected input");
+      }
+    }
+
+    private void skipWhitespace() {
+      while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+        position++;
+      }
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(String.format("%s at %d in condition %s.", message, position, source));
+    }
+
+  }
+
+}
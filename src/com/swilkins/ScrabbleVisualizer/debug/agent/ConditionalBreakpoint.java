@@ -0,0 +1,66 @@
+package com.swilkins.ScrabbleVisualizer.debug.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConditionalBreakpoint {
+
+  private final int id;
+  private final String className;
+  private final int lineNumber;
+  private final Condition condition;
+  // The locals the condition can see at each instrumented site of the line, by site
+  private final List<String[]> siteVisibleNames = new ArrayList<>();
+  private ClassLoader classLoader;
+  private boolean declaringClassResolved = false;
+  private volatile boolean failed = false;
+
+  ConditionalBreakpoint(int id, String className, int lineNumber, Condition condition) {
+    this.id = id;
+    this.className = className;
+    this.lineNumber = lineNumber;
+    this.condition = condition;
+  }
+
+  int getId() {
+    return id;
+  }
+
+  String getClassName() {
+    return className;
+  }
+
+  int getLineNumber() {
+    return lineNumber;
+  }
+
+  Condition getCondition() {
+    return condition;
+  }
+
+  // Returns the site to pass to test
+  int addSite(String[] visibleNames, ClassLoader classLoader) {
+    siteVisibleNames.add(visibleNames);
+    this.classLoader = classLoader;
+    return siteVisibleNames.size() - 1;
+  }
+
+  // A condition that cannot be evaluated is reported once, then treated as false
+  boolean test(int site, Object[] locals) {
+    if (failed) {
+      return false;
+    }
+    try {
+      if (!declaringClassResolved) {
+        condition.setDeclaringClass(Class.forName(className, false, classLoader));
+        declaringClassResolved = true;
+      }
+      return condition.test(locals, siteVisibleNames.get(site));
+    } catch (Exception e) {
+      failed = true;
+      System.err.printf("Disabled conditional breakpoint %s:%d (%s): %s%n", className, lineNumber, condition, e);
+      return false;
+    }
+  }
+
+}
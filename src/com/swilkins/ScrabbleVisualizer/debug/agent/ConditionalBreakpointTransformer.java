@@ -0,0 +1,172 @@
+package com.swilkins.ScrabbleVisualizer.debug.agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.*;
+
+// Inserts Agent.check(id, site, new Object[]{...}) before the first instruction of each
+// conditional breakpoint's line, at every line table entry for it: a line can be entered
+// from several places (loop headers, duplicated finally blocks, lambda bodies). The
+// inserted code neither branches nor touches existing locals, so the recorded stack map
+// frames stay valid as they are.
+public class ConditionalBreakpointTransformer implements ClassFileTransformer {
+
+  private static final String AGENT = Type.getInternalName(Agent.class);
+
+  private final Map<String, List<ConditionalBreakpoint>> conditionalBreakpointsByClass = new HashMap<>();
+
+  ConditionalBreakpointTransformer(ConditionalBreakpoint[] conditionalBreakpoints) {
+    for (ConditionalBreakpoint conditionalBreakpoint : conditionalBreakpoints) {
+      if (conditionalBreakpoint != null) {
+        String internalName = conditionalBreakpoint.getClassName().replace('.', '/');
+        conditionalBreakpointsByClass.computeIfAbsent(internalName, name -> new ArrayList<>()).add(conditionalBreakpoint);
+      }
+    }
+  }
+
+  @Override
+  public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+    List<ConditionalBreakpoint> conditionalBreakpoints = conditionalBreakpointsByClass.get(className);
+    if (conditionalBreakpoints == null) {
+      return null;
+    }
+    try {
+      ClassNode classNode = new ClassNode();
+      new ClassReader(classfileBuffer).accept(classNode, 0);
+      for (ConditionalBreakpoint conditionalBreakpoint : conditionalBreakpoints) {
+        if (!instrument(classNode, conditionalBreakpoint, loader)) {
+          System.err.printf("No code at %s:%d where the conditional breakpoint's locals are in scope.%n", conditionalBreakpoint.getClassName(), conditionalBreakpoint.getLineNumber());
+        }
+      }
+      ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+      classNode.accept(classWriter);
+      return classWriter.toByteArray();
+    } catch (Throwable t) {
+      t.printStackTrace();
+      return null;
+    }
+  }
+
+  private boolean instrument(ClassNode classNode, ConditionalBreakpoint conditionalBreakpoint, ClassLoader loader) {
+    boolean instrumented = false;
+    for (MethodNode method : classNode.methods) {
+      InsnList instructions = method.instructions;
+      // Entries for the line that lead to the same instruction share one check
+      Set<AbstractInsnNode> checked = new HashSet<>();
+      for (AbstractInsnNode node = instructions.getFirst(); node != null; node = node.getNext()) {
+        if (!(node instanceof LineNumberNode) || ((LineNumberNode) node).line != conditionalBreakpoint.getLineNumber()) {
+          continue;
+        }
+        AbstractInsnNode first = node.getNext();
+        while (first != null && first.getOpcode() < 0) {
+          first = first.getNext();
+        }
+        List<String> localNames = conditionalBreakpoint.getCondition().getLocalNames();
+        List<LocalVariableNode> visibleLocals = getVisibleLocals(method, ((LineNumberNode) node).start, localNames);
+        if (first == null || isOutOfScope(method, visibleLocals, localNames) || !checked.add(first)) {
+          continue;
+        }
+        String[] visibleNames = new String[visibleLocals.size()];
+        for (int i = 0; i < visibleNames.length; i++) {
+          visibleNames[i] = visibleLocals.get(i).name;
+        }
+        int site = conditionalBreakpoint.addSite(visibleNames, loader);
+        instructions.insertBefore(first, createCheck(conditionalBreakpoint.getId(), site, visibleLocals));
+        instrumented = true;
+      }
+    }
+    return instrumented;
+  }
+
+  private List<LocalVariableNode> getVisibleLocals(MethodNode method, LabelNode line, List<String> names) {
+    List<LocalVariableNode> visibleLocals = new ArrayList<>();
+    if (method.localVariables == null) {
+      return visibleLocals;
+    }
+    int lineIndex = method.instructions.indexOf(line);
+    for (LocalVariableNode local : method.localVariables) {
+      if (names.contains(local.name) && method.instructions.indexOf(local.start) <= lineIndex && lineIndex < method.instructions.indexOf(local.end)) {
+        visibleLocals.add(local);
+      }
+    }
+    return visibleLocals;
+  }
+
+  // Whether the condition names a local of method that is not in scope at this entry (one
+  // declared on the line itself, say), where it could not be evaluated
+  private boolean isOutOfScope(MethodNode method, List<LocalVariableNode> visibleLocals, List<String> names) {
+    if (method.localVariables == null) {
+      return false;
+    }
+    Set<String> visibleNames = new HashSet<>();
+    for (LocalVariableNode local : visibleLocals) {
+      visibleNames.add(local.name);
+    }
+    for (LocalVariableNode local : method.localVariables) {
+      if (names.contains(local.name) && !visibleNames.contains(local.name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private InsnList createCheck(int id, int site, List<LocalVariableNode> visibleLocals) {
+    InsnList check = new InsnList();
+    check.add(new LdcInsnNode(id));
+    check.add(new LdcInsnNode(site));
+    check.add(new LdcInsnNode(visibleLocals.size()));
+    check.add(new TypeInsnNode(Opcodes.ANEWARRAY, "java/lang/Object"));
+    for (int i = 0; i < visibleLocals.size(); i++) {
+      LocalVariableNode local = visibleLocals.get(i);
+      Type type = Type.getType(local.desc);
+      check.add(new InsnNode(Opcodes.DUP));
+      check.add(new LdcInsnNode(i));
+      check.add(new VarInsnNode(type.getOpcode(Opcodes.ILOAD), local.index));
+      box(check, type);
+      check.add(new InsnNode(Opcodes.AASTORE));
+    }
+    check.add(new MethodInsnNode(Opcodes.INVOKESTATIC, AGENT, "check", "(II[Ljava/lang/Object;)V", false));
+    return check;
+  }
+
+  private void box(InsnList instructions, Type type) {
+    String boxed;
+    switch (type.getSort()) {
+      case Type.BOOLEAN:
+        boxed = "java/lang/Boolean";
+        break;
+      case Type.CHAR:
+        boxed = "java/lang/Character";
+        break;
+      case Type.BYTE:
+        boxed = "java/lang/Byte";
+        break;
+      case Type.SHORT:
+        boxed = "java/lang/Short";
+        break;
+      case Type.INT:
+        boxed = "java/lang/Integer";
+        break;
+      case Type.FLOAT:
+        boxed = "java/lang/Float";
+        break;
+      case Type.LONG:
+        boxed = "java/lang/Long";
+        break;
+      case Type.DOUBLE:
+        boxed = "java/lang/Double";
+        break;
+      default:
+        return;
+    }
+    String descriptor = Type.getMethodDescriptor(Type.getObjectType(boxed), type);
+    instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, boxed, "valueOf", descriptor, false));
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.swilkins.ScrabbleVisualizer.debug.interfaces;
+
+import com.swilkins.ScrabbleVisualizer.debug.DebuggerSuspension;
+
+public interface DebuggerListener {
+
+  void onVirtualMachineStart();
+
+  // The target stays suspended until this returns
+  void onVirtualMachineSuspension(DebuggerSuspension suspension) throws Exception;
+
+  void onVirtualMachineContinuation();
+
+  void onVirtualMachineException(String exception);
+
+  void onVirtualMachineTermination(String virtualMachineOut, String virtualMachineError);
+
+}
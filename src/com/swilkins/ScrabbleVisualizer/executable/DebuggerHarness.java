@@ -1,16 +1,26 @@
 package com.swilkins.ScrabbleVisualizer.executable;
 
+import com.swilkins.ScrabbleVisualizer.debug.DebuggerFrame;
 import com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseDebugger;
+import com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseVisualizer;
 
 import java.awt.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class DebuggerHarness {
 
+  // Usage: DebuggerHarness [trace path to record the session to, or -] [Generator breakpoint condition]
   public static void main(String[] args) {
     EventQueue.invokeLater(() -> {
       try {
-        new ScrabbleBaseDebugger().setVisible(true);
-//        new FibonacciDebugger(1).setVisible(true);
+        ScrabbleBaseDebugger debugger = new ScrabbleBaseDebugger();
+        if (args.length > 1) {
+          debugger.setGeneratorBreakpointCondition(args[1]);
+        }
+        Path tracePath = args.length > 0 && !args[0].equals("-") ? Paths.get(args[0]) : null;
+        new DebuggerFrame(debugger, new ScrabbleBaseVisualizer(), tracePath).setVisible(true);
+//        new DebuggerFrame(new FibonacciDebugger(1), FibonacciDebugger.createWatchView()).setVisible(true);
       } catch (Exception e) {
         e.printStackTrace();
       }
@@ -16,7 +16,11 @@ import static com.swilkins.ScrabbleVisualizer.utility.Utilities.inputStreamToStr
 public class FibonacciDebugger extends Debugger {
 
   public FibonacciDebugger(int index) throws Exception {
-    super(Fibonacci.class, new DebuggerWatchView() {
+    super(Fibonacci.class, index);
+  }
+
+  public static DebuggerWatchView createWatchView() {
+    return new DebuggerWatchView() {
 
       @Override
       public void initialize(Dimension initialDimension) {
@@ -53,7 +57,7 @@ public class FibonacciDebugger extends Debugger {
       public void clean() {
 
       }
-    }, index);
+    };
   }
 
   @Override
@@ -0,0 +1,24 @@
+package com.swilkins.ScrabbleVisualizer.executable;
+
+import com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseDebugger;
+import com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseVisualizer;
+import com.swilkins.ScrabbleVisualizer.trace.TraceReplayFrame;
+
+import java.awt.*;
+import java.nio.file.Paths;
+
+public class ReplayHarness {
+
+  // Usage: ReplayHarness [trace path]
+  public static void main(String[] args) {
+    String path = args.length > 0 ? args[0] : "generator.trace";
+    EventQueue.invokeLater(() -> {
+      try {
+        new TraceReplayFrame(new ScrabbleBaseDebugger(), new ScrabbleBaseVisualizer(), Paths.get(path)).setVisible(true);
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    });
+  }
+
+}
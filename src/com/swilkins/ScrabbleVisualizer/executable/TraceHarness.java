@@ -0,0 +1,38 @@
+package com.swilkins.ScrabbleVisualizer.executable;
+
+import com.sun.jdi.request.StepRequest;
+import com.swilkins.ScrabbleVisualizer.debug.ScrabbleBaseDebugger;
+import com.swilkins.ScrabbleVisualizer.trace.TraceRecorder;
+
+import java.nio.file.Paths;
+
+public class TraceHarness {
+
+  // Usage: TraceHarness [trace path] [continue | over | into] [Generator breakpoint condition]
+  public static void main(String[] args) throws Exception {
+    String path = args.length > 0 ? args[0] : "generator.trace";
+    Integer stepRequestDepth = null;
+    if (args.length > 1) {
+      switch (args[1]) {
+        case "over":
+          stepRequestDepth = StepRequest.STEP_OVER;
+          break;
+        case "into":
+          stepRequestDepth = StepRequest.STEP_INTO;
+          break;
+        case "continue":
+          break;
+        default:
+          throw new IllegalArgumentException(String.format("Unknown step mode %s.", args[1]));
+      }
+    }
+    ScrabbleBaseDebugger debugger = new ScrabbleBaseDebugger();
+    if (args.length > 2) {
+      debugger.setGeneratorBreakpointCondition(args[2]);
+    }
+    TraceRecorder traceRecorder = new TraceRecorder(debugger, Paths.get(path), stepRequestDepth);
+    traceRecorder.record();
+    System.out.printf("Recorded %d steps to %s%n", traceRecorder.getStepCount(), path);
+  }
+
+}
@@ -0,0 +1,150 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.swilkins.ScrabbleVisualizer.trace.TraceValueCodec.readString;
+import static com.swilkins.ScrabbleVisualizer.trace.TraceValueCodec.readVarInt;
+import static com.swilkins.ScrabbleVisualizer.trace.TraceValueCodec.unZigZag;
+import static com.swilkins.ScrabbleVisualizer.trace.TraceWriter.*;
+
+// Only the name dictionary is read onto the heap; blocks and index entries are
+// read through mapped windows of the file, so any step is two lookups away.
+public class TraceReader implements Closeable {
+
+  private static final long WINDOW_SIZE = 1 << 26;
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final long stepCount;
+  private final long indexOffset;
+  private final String[] dictionary;
+  private final MappedWindow blockWindow = new MappedWindow();
+  private final MappedWindow indexWindow = new MappedWindow();
+
+  public TraceReader(Path path) throws IOException {
+    channel = FileChannel.open(path);
+    fileSize = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+    channel.read(header, 0);
+    header.flip();
+    if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC) {
+      throw new IOException(String.format("%s is not a trace.", path));
+    }
+    int version = header.getInt();
+    if (version != VERSION) {
+      throw new IOException(String.format("Unsupported trace version %d in %s (expected %d); record it again.", version, path, VERSION));
+    }
+    stepCount = header.getLong();
+    long dictionaryOffset = header.getLong();
+    indexOffset = header.getLong();
+    if (dictionaryOffset == 0) {
+      throw new IOException(String.format("%s was not closed by its writer.", path));
+    }
+
+    DataInput dictionaryInput = toDataInput(blockWindow.map(dictionaryOffset, indexOffset - dictionaryOffset));
+    dictionary = new String[readVarInt(dictionaryInput)];
+    for (int i = 0; i < dictionary.length; i++) {
+      dictionary[i] = readString(dictionaryInput);
+    }
+  }
+
+  public long getStepCount() {
+    return stepCount;
+  }
+
+  public TraceStep getStep(long step) throws IOException {
+    DataInput in = openBlock(step);
+    String className = dictionary[readVarInt(in)];
+    int lineNumber = unZigZag(readVarInt(in)) + getKeyframeLineNumber(step);
+    int variableCount = readVarInt(in);
+    Map<String, Object> variables = new HashMap<>(variableCount * 2);
+    for (int i = 0; i < variableCount; i++) {
+      String name = dictionary[readVarInt(in)];
+      variables.put(name, TraceValueCodec.read(in));
+    }
+    return new TraceStep(className, lineNumber, variables);
+  }
+
+  // Reads only the location of a step, leaving its variables undecoded
+  public String getClassName(long step) throws IOException {
+    return dictionary[readVarInt(openBlock(step))];
+  }
+
+  public int getLineNumber(long step) throws IOException {
+    DataInput in = openBlock(step);
+    readVarInt(in);
+    return unZigZag(readVarInt(in)) + getKeyframeLineNumber(step);
+  }
+
+  private int getKeyframeLineNumber(long step) throws IOException {
+    long keyframe = step - step % KEYFRAME_INTERVAL;
+    if (keyframe == step) {
+      return 0;
+    }
+    DataInput in = openBlock(keyframe);
+    readVarInt(in);
+    return unZigZag(readVarInt(in));
+  }
+
+  private DataInput openBlock(long step) throws IOException {
+    if (step < 0 || step >= stepCount) {
+      throw new IndexOutOfBoundsException(String.format("Step %d is outside of [0, %d).", step, stepCount));
+    }
+    long blockOffset = indexWindow.map(indexOffset + step * Long.BYTES, Long.BYTES).getLong();
+    // A varint length prefix is at most five bytes
+    ByteBuffer prefix = blockWindow.map(blockOffset, Math.min(5, indexOffset - blockOffset));
+    int blockLength = readVarInt(toDataInput(prefix));
+    long payloadOffset = blockOffset + prefix.position();
+    return toDataInput(blockWindow.map(payloadOffset, blockLength));
+  }
+
+  private static DataInput toDataInput(ByteBuffer buffer) {
+    return new DataInputStream(new InputStream() {
+      @Override
+      public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        if (!buffer.hasRemaining()) {
+          return -1;
+        }
+        len = Math.min(len, buffer.remaining());
+        buffer.get(b, off, len);
+        return len;
+      }
+    });
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  // Keeps one region of the file mapped, remapping only when a read falls outside it
+  private class MappedWindow {
+
+    private MappedByteBuffer buffer;
+    private long start = -1;
+
+    private ByteBuffer map(long offset, long length) throws IOException {
+      if (buffer == null || offset < start || offset + length > start + buffer.capacity()) {
+        start = offset;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(Math.max(WINDOW_SIZE, length), fileSize - start));
+      }
+      ByteBuffer view = buffer.duplicate();
+      view.position((int) (offset - start));
+      view.limit((int) (offset - start + length));
+      return view.slice();
+    }
+
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import com.swilkins.ScrabbleVisualizer.debug.Debugger;
+import com.swilkins.ScrabbleVisualizer.debug.DebuggerModel;
+import com.swilkins.ScrabbleVisualizer.debug.DebuggerSuspension;
+import com.swilkins.ScrabbleVisualizer.debug.interfaces.DebuggerListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+public class TraceRecorder implements DebuggerListener {
+
+  private final Debugger debugger;
+  private final DebuggerModel debuggerModel;
+  private final TraceWriter traceWriter;
+  private final Integer stepRequestDepth;
+  private final CountDownLatch termination = new CountDownLatch(1);
+
+  // stepRequestDepth is one of the StepRequest depths, or null to record only breakpoint hits
+  public TraceRecorder(Debugger debugger, Path path, Integer stepRequestDepth) throws IOException {
+    this.debugger = debugger;
+    this.debuggerModel = debugger.getDebuggerModel();
+    this.traceWriter = new TraceWriter(path);
+    this.stepRequestDepth = stepRequestDepth;
+  }
+
+  public void record() throws InterruptedException {
+    debugger.setDebuggerListener(this);
+    debugger.start();
+    termination.await();
+  }
+
+  public long getStepCount() {
+    return traceWriter.getStepCount();
+  }
+
+  @Override
+  public void onVirtualMachineStart() {
+
+  }
+
+  @Override
+  public void onVirtualMachineSuspension(DebuggerSuspension suspension) throws IOException {
+    traceWriter.write(suspension.getLocation(), suspension.dereferenceVariables());
+    debuggerModel.setRequestedStepRequestDepth(stepRequestDepth);
+  }
+
+  @Override
+  public void onVirtualMachineContinuation() {
+
+  }
+
+  @Override
+  public void onVirtualMachineException(String exception) {
+    System.err.println(exception);
+  }
+
+  @Override
+  public void onVirtualMachineTermination(String virtualMachineOut, String virtualMachineError) {
+    try {
+      traceWriter.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    if (virtualMachineOut != null && !virtualMachineOut.isEmpty()) {
+      System.out.println(virtualMachineOut);
+    }
+    if (virtualMachineError != null && !virtualMachineError.isEmpty()) {
+      System.out.println(virtualMachineError);
+    }
+    termination.countDown();
+  }
+
+}
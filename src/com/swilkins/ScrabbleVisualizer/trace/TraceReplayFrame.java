@@ -0,0 +1,135 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import com.swilkins.ScrabbleVisualizer.debug.*;
+import com.swilkins.ScrabbleVisualizer.view.DebuggerWatchView;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.swilkins.ScrabbleVisualizer.debug.DebuggerControl.*;
+
+// Drives the source and watch views from a recorded trace; no virtual machine is involved
+public class TraceReplayFrame extends DebuggerViewFrame {
+
+  private final DebuggerModel debuggerModel;
+  private final TraceReader traceReader;
+  private final DebuggerSourceView debuggerSourceView;
+  private final DebuggerWatchView debuggerWatchView;
+  private final JSlider scrubBar;
+  private long currentStep = -1;
+
+  // The debugger is never started; it only supplies the configured sources of its target
+  public TraceReplayFrame(Debugger debugger, DebuggerWatchView debuggerWatchView, Path tracePath) throws IOException {
+    super(String.format("%s (%s)", debugger.getVirtualMachineTargetClass().getSimpleName(), tracePath.getFileName()));
+    this.debuggerModel = debugger.getDebuggerModel();
+    this.traceReader = new TraceReader(tracePath);
+    this.debuggerWatchView = debuggerWatchView;
+
+    addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        try {
+          traceReader.close();
+        } catch (IOException ex) {
+          ex.printStackTrace();
+        }
+        debuggerModel.close();
+      }
+    });
+
+    debuggerSourceView = new DebuggerSourceView();
+    debuggerSourceView.setDefaultControlActionListeners(getReplayControlActionListeners());
+    debuggerSourceView.setPreferredSize(verticalScreenHalf);
+    debuggerSourceView.setOptions(null);
+    debuggerSourceView.addDefaultControlButtons();
+
+    long stepCount = traceReader.getStepCount();
+    scrubBar = new JSlider(0, (int) Math.max(0, Math.min(stepCount, Integer.MAX_VALUE) - 1), 0);
+    scrubBar.addChangeListener(e -> showStep(scrubBar.getValue()));
+
+    JPanel sourcePanel = new JPanel();
+    sourcePanel.setLayout(new BoxLayout(sourcePanel, BoxLayout.Y_AXIS));
+    sourcePanel.add(debuggerSourceView);
+    sourcePanel.add(scrubBar);
+
+    layOutViews(sourcePanel, debuggerWatchView);
+
+    debuggerSourceView.start();
+    debuggerSourceView.setAllControlButtonsEnabled(stepCount > 0);
+    if (stepCount > 0) {
+      showStep(0);
+    }
+  }
+
+  private void showStep(long step) {
+    if (step == currentStep || step < 0 || step >= traceReader.getStepCount()) {
+      return;
+    }
+    try {
+      TraceStep traceStep = traceReader.getStep(step);
+      DebugClassLocation location = debuggerModel.toDebugClassLocation(traceStep.getClassName(), traceStep.getLineNumber());
+      if (location == null) {
+        debuggerSourceView.reportException(String.format("No source for %s", traceStep.getClassName()), DebuggerExceptionType.DEBUGGER);
+        return;
+      }
+      currentStep = step;
+      if (scrubBar.getValue() != step) {
+        scrubBar.setValue((int) step);
+      }
+      debuggerSourceView.setSelectedLocation(location);
+      if (debuggerWatchView != null) {
+        debuggerWatchView.clean();
+        debuggerWatchView.updateFrom(location, traceStep.getVariables());
+      }
+    } catch (IOException e) {
+      debuggerSourceView.reportException(e.toString(), DebuggerExceptionType.DEBUGGER);
+    }
+  }
+
+  // Scans locations only, so no variables are decoded for the skipped steps
+  private long findNextHit(DebugClassLocation target) throws IOException {
+    String className = target.getDebugClass().getClassName();
+    int lineNumber = target.getLineNumber();
+    for (long step = currentStep + 1; step < traceReader.getStepCount(); step++) {
+      if (traceReader.getLineNumber(step) == lineNumber && traceReader.getClassName(step).equals(className)) {
+        return step;
+      }
+    }
+    return -1;
+  }
+
+  private Map<DebuggerControl, ActionListener> getReplayControlActionListeners() {
+    Map<DebuggerControl, ActionListener> replayControlActionListeners = new LinkedHashMap<>();
+    replayControlActionListeners.put(STEP_BACK, e -> showStep(currentStep - 1));
+    replayControlActionListeners.put(STEP_FORWARD, e -> showStep(currentStep + 1));
+    replayControlActionListeners.put(NEXT_HIT, e -> {
+      DebugClassLocation selectedLocation = debuggerSourceView.getSelectedLocation();
+      if (selectedLocation == null) {
+        return;
+      }
+      try {
+        long nextHit = findNextHit(selectedLocation);
+        if (nextHit != -1) {
+          showStep(nextHit);
+        } else {
+          Toolkit.getDefaultToolkit().beep();
+        }
+      } catch (IOException ex) {
+        debuggerSourceView.reportException(ex.toString(), DebuggerExceptionType.DEBUGGER);
+      }
+    });
+    replayControlActionListeners.put(RECENTER, e -> {
+      DebugClassLocation location = debuggerSourceView.getProgrammaticSelectedLocation();
+      debuggerSourceView.setSelectedLocation(location);
+    });
+    return replayControlActionListeners;
+  }
+
+}
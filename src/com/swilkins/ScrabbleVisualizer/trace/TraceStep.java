@@ -0,0 +1,37 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import java.util.Map;
+
+public class TraceStep {
+
+  private final String className;
+  private final int lineNumber;
+  private final Map<String, Object> variables;
+
+  public TraceStep(String className, int lineNumber, Map<String, Object> variables) {
+    this.className = className;
+    this.lineNumber = lineNumber;
+    this.variables = variables;
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public Map<String, Object> getVariables() {
+    return variables;
+  }
+
+  @Override
+  public String toString() {
+    return "TraceStep{" + "className=" + className +
+            ", lineNumber=" + lineNumber +
+            ", variables=" + variables.keySet() +
+            '}';
+  }
+
+}
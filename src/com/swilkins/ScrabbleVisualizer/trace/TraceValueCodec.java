@@ -0,0 +1,271 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import com.swilkins.ScrabbleVisualizer.debug.RecordedTruncatedValue;
+import com.swilkins.ScrabbleVisualizer.debug.TruncatedValue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class TraceValueCodec {
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte BOOLEAN = 2;
+  private static final byte CHAR = 3;
+  private static final byte BYTE = 4;
+  private static final byte SHORT = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte OBJECT_ARRAY = 10;
+  private static final byte CHAR_ARRAY = 11;
+  private static final byte INT_ARRAY = 12;
+  private static final byte BOOLEAN_ARRAY = 13;
+  private static final byte BYTE_ARRAY = 14;
+  private static final byte DOUBLE_ARRAY = 15;
+  private static final byte FLOAT_ARRAY = 16;
+  private static final byte LONG_ARRAY = 17;
+  private static final byte SHORT_ARRAY = 18;
+  private static final byte TRUNCATED = 19;
+
+  private TraceValueCodec() {
+  }
+
+  // Anything that is not a dereferenced primitive, string or array (i.e. a raw
+  // mirror) is recorded by its string form, since mirrors mean nothing once the
+  // target has exited.
+  public static void write(DataOutput out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Character) {
+      out.writeByte(CHAR);
+      out.writeChar((Character) value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      writeVarInt(out, zigZag((Integer) value));
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Object[]) {
+      Object[] array = (Object[]) value;
+      out.writeByte(OBJECT_ARRAY);
+      writeVarInt(out, array.length);
+      for (Object element : array) {
+        write(out, element);
+      }
+    } else if (value instanceof char[]) {
+      char[] array = (char[]) value;
+      out.writeByte(CHAR_ARRAY);
+      writeVarInt(out, array.length);
+      for (char element : array) {
+        out.writeChar(element);
+      }
+    } else if (value instanceof int[]) {
+      int[] array = (int[]) value;
+      out.writeByte(INT_ARRAY);
+      writeVarInt(out, array.length);
+      for (int element : array) {
+        writeVarInt(out, zigZag(element));
+      }
+    } else if (value instanceof boolean[]) {
+      boolean[] array = (boolean[]) value;
+      out.writeByte(BOOLEAN_ARRAY);
+      writeVarInt(out, array.length);
+      for (boolean element : array) {
+        out.writeBoolean(element);
+      }
+    } else if (value instanceof byte[]) {
+      byte[] array = (byte[]) value;
+      out.writeByte(BYTE_ARRAY);
+      writeVarInt(out, array.length);
+      out.write(array);
+    } else if (value instanceof double[]) {
+      double[] array = (double[]) value;
+      out.writeByte(DOUBLE_ARRAY);
+      writeVarInt(out, array.length);
+      for (double element : array) {
+        out.writeDouble(element);
+      }
+    } else if (value instanceof float[]) {
+      float[] array = (float[]) value;
+      out.writeByte(FLOAT_ARRAY);
+      writeVarInt(out, array.length);
+      for (float element : array) {
+        out.writeFloat(element);
+      }
+    } else if (value instanceof long[]) {
+      long[] array = (long[]) value;
+      out.writeByte(LONG_ARRAY);
+      writeVarInt(out, array.length);
+      for (long element : array) {
+        out.writeLong(element);
+      }
+    } else if (value instanceof short[]) {
+      short[] array = (short[]) value;
+      out.writeByte(SHORT_ARRAY);
+      writeVarInt(out, array.length);
+      for (short element : array) {
+        out.writeShort(element);
+      }
+    } else if (value instanceof TruncatedValue || value instanceof RecordedTruncatedValue) {
+      out.writeByte(TRUNCATED);
+      writeString(out, value.toString());
+    } else {
+      out.writeByte(STRING);
+      writeString(out, value.toString());
+    }
+  }
+
+  public static Object read(DataInput in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING:
+        return readString(in);
+      case TRUNCATED:
+        return new RecordedTruncatedValue(readString(in));
+      case BOOLEAN:
+        return in.readBoolean();
+      case CHAR:
+        return in.readChar();
+      case BYTE:
+        return in.readByte();
+      case SHORT:
+        return in.readShort();
+      case INT:
+        return unZigZag(readVarInt(in));
+      case LONG:
+        return in.readLong();
+      case FLOAT:
+        return in.readFloat();
+      case DOUBLE:
+        return in.readDouble();
+      case OBJECT_ARRAY: {
+        Object[] array = new Object[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = read(in);
+        }
+        return array;
+      }
+      case CHAR_ARRAY: {
+        char[] array = new char[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readChar();
+        }
+        return array;
+      }
+      case INT_ARRAY: {
+        int[] array = new int[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = unZigZag(readVarInt(in));
+        }
+        return array;
+      }
+      case BOOLEAN_ARRAY: {
+        boolean[] array = new boolean[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readBoolean();
+        }
+        return array;
+      }
+      case BYTE_ARRAY: {
+        byte[] array = new byte[readVarInt(in)];
+        in.readFully(array);
+        return array;
+      }
+      case DOUBLE_ARRAY: {
+        double[] array = new double[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readDouble();
+        }
+        return array;
+      }
+      case FLOAT_ARRAY: {
+        float[] array = new float[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readFloat();
+        }
+        return array;
+      }
+      case LONG_ARRAY: {
+        long[] array = new long[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readLong();
+        }
+        return array;
+      }
+      case SHORT_ARRAY: {
+        short[] array = new short[readVarInt(in)];
+        for (int i = 0; i < array.length; i++) {
+          array[i] = in.readShort();
+        }
+        return array;
+      }
+      default:
+        throw new IOException(String.format("Unknown trace value tag %d.", tag));
+    }
+  }
+
+  public static void writeString(DataOutput out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  public static String readString(DataInput in) throws IOException {
+    byte[] bytes = new byte[readVarInt(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public static void writeVarInt(DataOutput out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  public static int readVarInt(DataInput in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint in trace.");
+  }
+
+  public static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  public static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -0,0 +1,130 @@
+package com.swilkins.ScrabbleVisualizer.trace;
+
+import com.swilkins.ScrabbleVisualizer.debug.DebugClassLocation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.swilkins.ScrabbleVisualizer.trace.TraceValueCodec.*;
+import static java.nio.file.StandardOpenOption.*;
+
+// Layout: a fixed header (magic, version, step count, dictionary offset, index
+// offset), one length-prefixed block per step, the name dictionary and finally
+// the step index of absolute block offsets. The header is patched on close.
+// VERSION also covers the shape of the dereferenced values: it went to 3 when
+// BoardSquares became [tile, multiplier] instead of just the tile.
+public class TraceWriter implements Closeable {
+
+  static final int MAGIC = 0x53565452;
+  static final int VERSION = 3;
+  static final int HEADER_LENGTH = 32;
+  static final int KEYFRAME_INTERVAL = 64;
+
+  private final FileChannel channel;
+  private final CountingOutputStream counter;
+  private final DataOutputStream out;
+  private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(1 << 12);
+  private final DataOutputStream block = new DataOutputStream(blockBytes);
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private final List<String> dictionaryEntries = new ArrayList<>();
+  private long[] index = new long[1 << 10];
+  private long stepCount = 0;
+  private int keyframeLineNumber;
+
+  public TraceWriter(Path path) throws IOException {
+    channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+    counter = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    out = new DataOutputStream(counter);
+    out.write(new byte[HEADER_LENGTH]);
+  }
+
+  public void write(DebugClassLocation location, Map<String, Object> variables) throws IOException {
+    int lineNumber = location.getLineNumber();
+    if (stepCount % KEYFRAME_INTERVAL == 0) {
+      keyframeLineNumber = 0;
+    }
+    blockBytes.reset();
+    writeVarInt(block, getDictionaryId(location.getDebugClass().getClassName()));
+    writeVarInt(block, zigZag(lineNumber - keyframeLineNumber));
+    writeVarInt(block, variables.size());
+    for (Map.Entry<String, Object> variable : variables.entrySet()) {
+      writeVarInt(block, getDictionaryId(variable.getKey()));
+      TraceValueCodec.write(block, variable.getValue());
+    }
+    if (stepCount % KEYFRAME_INTERVAL == 0) {
+      keyframeLineNumber = lineNumber;
+    }
+
+    if (stepCount == index.length) {
+      index = Arrays.copyOf(index, index.length * 2);
+    }
+    index[(int) stepCount++] = counter.count;
+    writeVarInt(out, blockBytes.size());
+    blockBytes.writeTo(out);
+  }
+
+  private int getDictionaryId(String name) {
+    Integer id = dictionary.get(name);
+    if (id == null) {
+      id = dictionaryEntries.size();
+      dictionary.put(name, id);
+      dictionaryEntries.add(name);
+    }
+    return id;
+  }
+
+  public long getStepCount() {
+    return stepCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    long dictionaryOffset = counter.count;
+    writeVarInt(out, dictionaryEntries.size());
+    for (String entry : dictionaryEntries) {
+      writeString(out, entry);
+    }
+    long indexOffset = counter.count;
+    for (int i = 0; i < stepCount; i++) {
+      out.writeLong(index[i]);
+    }
+    out.flush();
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+    header.putInt(MAGIC).putInt(VERSION).putLong(stepCount).putLong(dictionaryOffset).putLong(indexOffset).flip();
+    channel.write(header, 0);
+    out.close();
+  }
+
+  // DataOutputStream.size() saturates at Integer.MAX_VALUE, which traces outgrow
+  private static class CountingOutputStream extends FilterOutputStream {
+
+    private long count = 0;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+
+  }
+
+}
@@ -8,6 +8,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 public final class Utilities {
@@ -37,6 +38,34 @@ public final class Utilities {
     return icon;
   }
 
+  public static String primitiveArrayToString(Object primitiveArray) {
+    if (primitiveArray instanceof char[]) {
+      return Arrays.toString((char[]) primitiveArray);
+    }
+    if (primitiveArray instanceof int[]) {
+      return Arrays.toString((int[]) primitiveArray);
+    }
+    if (primitiveArray instanceof boolean[]) {
+      return Arrays.toString((boolean[]) primitiveArray);
+    }
+    if (primitiveArray instanceof byte[]) {
+      return Arrays.toString((byte[]) primitiveArray);
+    }
+    if (primitiveArray instanceof double[]) {
+      return Arrays.toString((double[]) primitiveArray);
+    }
+    if (primitiveArray instanceof float[]) {
+      return Arrays.toString((float[]) primitiveArray);
+    }
+    if (primitiveArray instanceof long[]) {
+      return Arrays.toString((long[]) primitiveArray);
+    }
+    if (primitiveArray instanceof short[]) {
+      return Arrays.toString((short[]) primitiveArray);
+    }
+    return String.valueOf(primitiveArray);
+  }
+
   public static String longestCommonPrefix(List<String> a) {
     /* if size is 0, return empty string */
     if (a.isEmpty()) {
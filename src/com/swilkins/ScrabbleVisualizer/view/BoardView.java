@@ -0,0 +1,263 @@
+package com.swilkins.ScrabbleVisualizer.view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Paints a square board of any size as one component. Cell text, multiplier labels and
+// direction glyphs are rasterized once per cell size and blitted, and only the cells
+// intersecting the clip are painted.
+public class BoardView extends JComponent {
+
+  private static final Color GRID_COLOR = Color.BLACK;
+  private static final Color MULTIPLIER_COLOR = Color.GRAY;
+
+  private Cell[][] cells = new Cell[0][0];
+  private final Map<String, Image> glyphSources = new HashMap<>();
+  private final Map<String, Image> glyphCache = new HashMap<>();
+  private int glyphCacheCellSize = -1;
+  private double glyphCacheScale = -1;
+
+  public BoardView(int dimensions) {
+    setOpaque(true);
+    setBackground(Color.WHITE);
+    setForeground(Color.BLACK);
+    setFont(UIManager.getFont("Label.font"));
+    setDimensions(dimensions);
+  }
+
+  public int getDimensions() {
+    return cells.length;
+  }
+
+  public void setDimensions(int dimensions) {
+    if (dimensions == cells.length) {
+      return;
+    }
+    cells = new Cell[dimensions][dimensions];
+    for (int y = 0; y < dimensions; y++) {
+      for (int x = 0; x < dimensions; x++) {
+        cells[y][x] = new Cell();
+      }
+    }
+    repaint();
+  }
+
+  public void setGlyph(String name, Image image) {
+    glyphSources.put(name, image);
+    glyphCache.clear();
+    repaint();
+  }
+
+  // Copies in the given cells and repaints only those that changed
+  public void update(Cell[][] next) {
+    setDimensions(next.length);
+    Rectangle dirty = null;
+    for (int y = 0; y < next.length; y++) {
+      for (int x = 0; x < next.length; x++) {
+        Cell cell = cells[y][x];
+        if (!cell.equals(next[y][x])) {
+          cell.copyFrom(next[y][x]);
+          Rectangle bounds = getCellBounds(x, y);
+          dirty = dirty == null ? bounds : dirty.union(bounds);
+        }
+      }
+    }
+    if (dirty != null) {
+      repaint(dirty);
+    }
+  }
+
+  private int getCellSize() {
+    Insets insets = getInsets();
+    int width = getWidth() - insets.left - insets.right;
+    int height = getHeight() - insets.top - insets.bottom;
+    return cells.length == 0 ? 0 : Math.max(0, Math.min(width, height) / cells.length);
+  }
+
+  private Rectangle getCellBounds(int x, int y) {
+    Insets insets = getInsets();
+    int cellSize = getCellSize();
+    return new Rectangle(insets.left + x * cellSize, insets.top + y * cellSize, cellSize + 1, cellSize + 1);
+  }
+
+  @Override
+  protected void paintComponent(Graphics graphics) {
+    Graphics2D g = (Graphics2D) graphics.create();
+    try {
+      Rectangle clip = g.getClipBounds();
+      if (clip == null) {
+        clip = new Rectangle(0, 0, getWidth(), getHeight());
+      }
+      g.setColor(getBackground());
+      g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+      int dimensions = cells.length;
+      int cellSize = getCellSize();
+      if (dimensions == 0 || cellSize == 0) {
+        return;
+      }
+      invalidateGlyphCache(cellSize, g.getTransform());
+
+      Insets insets = getInsets();
+      int fromX = clamp((clip.x - insets.left) / cellSize, dimensions);
+      int toX = clamp((clip.x + clip.width - insets.left) / cellSize, dimensions);
+      int fromY = clamp((clip.y - insets.top) / cellSize, dimensions);
+      int toY = clamp((clip.y + clip.height - insets.top) / cellSize, dimensions);
+
+      for (int y = fromY; y <= toY; y++) {
+        for (int x = fromX; x <= toX; x++) {
+          Cell cell = cells[y][x];
+          int left = insets.left + x * cellSize;
+          int top = insets.top + y * cellSize;
+          g.setColor(cell.background);
+          g.fillRect(left, top, cellSize, cellSize);
+          if (cell.text != null) {
+            drawGlyph(g, "text:" + cell.text, left, top, cellSize);
+          } else if (cell.multiplier != null) {
+            drawGlyph(g, "multiplier:" + cell.multiplier, left, top, cellSize);
+          }
+          if (cell.glyph != null) {
+            drawGlyph(g, "glyph:" + cell.glyph, left, top, cellSize);
+          }
+        }
+      }
+
+      g.setColor(GRID_COLOR);
+      int extent = dimensions * cellSize;
+      for (int x = fromX; x <= Math.min(toX + 1, dimensions); x++) {
+        int left = insets.left + x * cellSize;
+        g.drawLine(left, insets.top, left, insets.top + extent);
+      }
+      for (int y = fromY; y <= Math.min(toY + 1, dimensions); y++) {
+        int top = insets.top + y * cellSize;
+        g.drawLine(insets.left, top, insets.left + extent, top);
+      }
+    } finally {
+      g.dispose();
+    }
+  }
+
+  private static int clamp(int index, int dimensions) {
+    return Math.max(0, Math.min(dimensions - 1, index));
+  }
+
+  private void invalidateGlyphCache(int cellSize, AffineTransform transform) {
+    double scale = transform.getScaleX();
+    if (cellSize != glyphCacheCellSize || scale != glyphCacheScale) {
+      glyphCache.clear();
+      glyphCacheCellSize = cellSize;
+      glyphCacheScale = scale;
+    }
+  }
+
+  private void drawGlyph(Graphics2D g, String key, int left, int top, int cellSize) {
+    Image glyph = glyphCache.computeIfAbsent(key, k -> rasterize(k, cellSize));
+    if (glyph != null) {
+      g.drawImage(glyph, left, top, cellSize, cellSize, null);
+    }
+  }
+
+  // Rasterizes at device resolution so the blit stays sharp on scaled displays
+  private Image rasterize(String key, int cellSize) {
+    int pixels = Math.max(1, (int) Math.ceil(cellSize * glyphCacheScale));
+    int separator = key.indexOf(':');
+    String kind = key.substring(0, separator);
+    String value = key.substring(separator + 1);
+    BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      switch (kind) {
+        case "glyph":
+          Image source = glyphSources.get(value);
+          if (source == null) {
+            return null;
+          }
+          int inset = pixels / 8;
+          g.drawImage(source, inset, inset, pixels - 2 * inset, pixels - 2 * inset, null);
+          break;
+        case "multiplier":
+          g.setColor(MULTIPLIER_COLOR);
+          drawCentered(g, value, getFont().deriveFont(Font.PLAIN, pixels * 0.3f), pixels);
+          break;
+        default:
+          g.setColor(getForeground());
+          drawCentered(g, value, getFont().deriveFont(Font.BOLD, pixels * (value.length() > 1 ? 0.35f : 0.5f)), pixels);
+      }
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  private static void drawCentered(Graphics2D g, String text, Font font, int pixels) {
+    g.setFont(font);
+    FontMetrics metrics = g.getFontMetrics();
+    int x = (pixels - metrics.stringWidth(text)) / 2;
+    int y = (pixels - metrics.getHeight()) / 2 + metrics.getAscent();
+    g.drawString(text, x, y);
+  }
+
+  public static class Cell {
+
+    private String text;
+    private Color background = Color.WHITE;
+    private String glyph;
+    private String multiplier;
+
+    public void setText(String text) {
+      this.text = text;
+    }
+
+    public void setBackground(Color background) {
+      this.background = background;
+    }
+
+    public void setGlyph(String glyph) {
+      this.glyph = glyph;
+    }
+
+    public void setMultiplier(String multiplier) {
+      this.multiplier = multiplier;
+    }
+
+    public void reset() {
+      text = null;
+      background = Color.WHITE;
+      glyph = null;
+      multiplier = null;
+    }
+
+    private void copyFrom(Cell other) {
+      text = other.text;
+      background = other.background;
+      glyph = other.glyph;
+      multiplier = other.multiplier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Cell cell = (Cell) o;
+      return Objects.equals(text, cell.text) &&
+              background.equals(cell.background) &&
+              Objects.equals(glyph, cell.glyph) &&
+              Objects.equals(multiplier, cell.multiplier);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(text, background, glyph, multiplier);
+    }
+
+  }
+
+}
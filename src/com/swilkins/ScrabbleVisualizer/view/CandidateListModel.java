@@ -0,0 +1,161 @@
+package com.swilkins.ScrabbleVisualizer.view;
+
+import javax.swing.*;
+import java.util.*;
+
+// Keeps dereferenced candidates ([score, representation]) ordered by descending score. Each
+// update is diffed against the previous one, so only new or vanished candidates are moved,
+// and list events cover just the rows that shifted. Live dereferencing hands back the same
+// array while nothing changed and keeps the elements it already had, so an identical array is
+// skipped and one that only grew has just its tail inserted. With a limit set, only the top
+// rows are exposed to the list.
+public class CandidateListModel extends AbstractListModel<String> {
+
+  private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingInt(entry -> entry.score).reversed()
+          .thenComparing(entry -> entry.representation);
+
+  private final List<Entry> entries = new ArrayList<>();
+  private Map<Entry, Integer> counts = new HashMap<>();
+  private Object[] lastCandidates;
+  private int limit = Integer.MAX_VALUE;
+
+  public int getTotalSize() {
+    return entries.size();
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public void setLimit(int limit) {
+    int previousSize = getSize();
+    this.limit = limit <= 0 ? Integer.MAX_VALUE : limit;
+    fireResized(previousSize, getSize(), Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int getSize() {
+    return Math.min(limit, entries.size());
+  }
+
+  @Override
+  public String getElementAt(int index) {
+    return entries.get(index).representation;
+  }
+
+  public void update(Object[] candidates) {
+    if (candidates == lastCandidates) {
+      return;
+    }
+    int previousSize = getSize();
+    if (isAppendedTo(candidates, lastCandidates)) {
+      int firstChanged = Integer.MAX_VALUE;
+      for (int i = lastCandidates.length; i < candidates.length; i++) {
+        Entry entry = toEntry(candidates[i]);
+        counts.merge(entry, 1, Integer::sum);
+        firstChanged = Math.min(firstChanged, insert(entry));
+      }
+      lastCandidates = candidates;
+      fireResized(previousSize, getSize(), firstChanged);
+      return;
+    }
+
+    Map<Entry, Integer> nextCounts = new HashMap<>(candidates.length * 2);
+    for (Object candidate : candidates) {
+      nextCounts.merge(toEntry(candidate), 1, Integer::sum);
+    }
+
+    int firstChanged = Integer.MAX_VALUE;
+    for (Map.Entry<Entry, Integer> previous : counts.entrySet()) {
+      int surplus = previous.getValue() - nextCounts.getOrDefault(previous.getKey(), 0);
+      for (int i = 0; i < surplus; i++) {
+        int index = Collections.binarySearch(entries, previous.getKey(), ORDER);
+        entries.remove(index);
+        firstChanged = Math.min(firstChanged, index);
+      }
+    }
+    for (Map.Entry<Entry, Integer> next : nextCounts.entrySet()) {
+      int deficit = next.getValue() - counts.getOrDefault(next.getKey(), 0);
+      for (int i = 0; i < deficit; i++) {
+        firstChanged = Math.min(firstChanged, insert(next.getKey()));
+      }
+    }
+    counts = nextCounts;
+    lastCandidates = candidates;
+    fireResized(previousSize, getSize(), firstChanged);
+  }
+
+  public void clear() {
+    int previousSize = getSize();
+    entries.clear();
+    counts = new HashMap<>();
+    lastCandidates = null;
+    fireResized(previousSize, 0, Integer.MAX_VALUE);
+  }
+
+  // Compared by identity, which is all the remembered elements of a re-listed collection keep
+  private static boolean isAppendedTo(Object[] candidates, Object[] previous) {
+    if (previous == null || candidates.length < previous.length) {
+      return false;
+    }
+    for (int i = 0; i < previous.length; i++) {
+      if (candidates[i] != previous[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Entry toEntry(Object candidate) {
+    Object[] components = (Object[]) candidate;
+    return new Entry((int) components[0], String.valueOf(components[1]));
+  }
+
+  private int insert(Entry entry) {
+    int index = Collections.binarySearch(entries, entry, ORDER);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    entries.add(index, entry);
+    return index;
+  }
+
+  private void fireResized(int previousSize, int size, int firstChanged) {
+    int lastChanged = Math.min(previousSize, size) - 1;
+    if (firstChanged <= lastChanged) {
+      fireContentsChanged(this, firstChanged, lastChanged);
+    }
+    if (size > previousSize) {
+      fireIntervalAdded(this, previousSize, size - 1);
+    } else if (size < previousSize) {
+      fireIntervalRemoved(this, size, previousSize - 1);
+    }
+  }
+
+  private static class Entry {
+
+    private final int score;
+    private final String representation;
+
+    private Entry(int score, String representation) {
+      this.score = score;
+      this.representation = representation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Entry entry = (Entry) o;
+      return score == entry.score &&
+              representation.equals(entry.representation);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(score, representation);
+    }
+
+  }
+
+}
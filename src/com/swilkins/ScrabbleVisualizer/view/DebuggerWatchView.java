@@ -1,12 +1,22 @@
 package com.swilkins.ScrabbleVisualizer.view;
 
 import com.swilkins.ScrabbleVisualizer.debug.DebugClassLocation;
+import com.swilkins.ScrabbleVisualizer.debug.RecordedTruncatedValue;
+import com.swilkins.ScrabbleVisualizer.debug.TruncatedValue;
 
 import javax.swing.*;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.swilkins.ScrabbleVisualizer.utility.Utilities.primitiveArrayToString;
 
 public abstract class DebuggerWatchView extends JPanel {
 
@@ -15,9 +25,33 @@ public abstract class DebuggerWatchView extends JPanel {
   protected final JTextArea rawWatchedName = new JTextArea();
   protected final JTextArea rawWatchedValue = new JTextArea();
 
+  private Map<String, Object> dereferencedVariables = Collections.emptyMap();
+  private Supplier<CompletableFuture<Map<String, Object>>> deferredVariables;
+  private Function<TruncatedValue, CompletableFuture<Object>> truncatedValueExpander;
+  // What deferred dereferencing and expansion have resolved for the current variables; replaced,
+  // not cleared, on each update, so late results for earlier variables land in a discarded map
+  private Map<String, Object> resolvedVariables = Collections.synchronizedMap(new HashMap<>());
+  private final RenderPipeline<Map<String, Object>> resolvedVariablesPipeline = new RenderPipeline<>(this::onVariablesResolved);
+  private final List<String> rawWatchedNames = new ArrayList<>();
+
   public DebuggerWatchView() {
     super();
     registerUpdaters();
+    rawWatchedName.addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        if (e.getClickCount() == 2) {
+          try {
+            int line = rawWatchedName.getLineOfOffset(rawWatchedName.viewToModel2D(e.getPoint()));
+            if (line < rawWatchedNames.size()) {
+              expandRawVariable(rawWatchedNames.get(line));
+            }
+          } catch (BadLocationException ex) {
+            ex.printStackTrace();
+          }
+        }
+      }
+    });
   }
 
   public abstract void initialize(Dimension initialDimension);
@@ -30,24 +64,121 @@ public abstract class DebuggerWatchView extends JPanel {
 
   protected abstract void registerUpdaters();
 
+  public Set<String> getVariableDependencies() {
+    Set<String> variableDependencies = new HashSet<>();
+    for (String[] dependencies : updaters.keySet()) {
+      variableDependencies.addAll(Arrays.asList(dependencies));
+    }
+    return variableDependencies;
+  }
+
+  public void setTruncatedValueExpander(Function<TruncatedValue, CompletableFuture<Object>> truncatedValueExpander) {
+    this.truncatedValueExpander = truncatedValueExpander;
+  }
+
+  public boolean isRawViewVisible() {
+    return true;
+  }
+
   public void updateFrom(DebugClassLocation location, Map<String, Object> dereferencedVariables) {
-    onVariablesDereferenced(dereferencedVariables);
+    updateFrom(location, dereferencedVariables, null);
+  }
+
+  public void updateFrom(DebugClassLocation location, Map<String, Object> dereferencedVariables, Supplier<CompletableFuture<Map<String, Object>>> deferredVariables) {
+    this.dereferencedVariables = dereferencedVariables;
+    this.deferredVariables = deferredVariables;
+    resolvedVariables = Collections.synchronizedMap(new HashMap<>());
+    if (isRawViewVisible()) {
+      showRawVariables();
+    }
 
     for (Map.Entry<String[], BiConsumer<DebugClassLocation, Iterator<Object>>> entry : updaters.entrySet()) {
       String[] dependencies = entry.getKey();
       List<Object> args = new ArrayList<>();
       for (String dependencyName : entry.getKey()) {
         Object arg = dereferencedVariables.get(dependencyName);
-        if (arg != null) {
+        if (arg != null && !containsTruncatedValue(arg)) {
           args.add(arg);
         }
       }
+      // Updaters are skipped until all of their dependencies are complete; the raw view still
+      // shows what was truncated
       if (dependencies.length == args.size()) {
         entry.getValue().accept(location, args.iterator());
       }
     }
   }
 
+  private static boolean containsTruncatedValue(Object value) {
+    if (value instanceof TruncatedValue || value instanceof RecordedTruncatedValue) {
+      return true;
+    }
+    if (value instanceof Object[]) {
+      for (Object element : (Object[]) value) {
+        if (containsTruncatedValue(element)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // The deferred variables are requested rather than waited for (the target may take its time
+  // with the invocations), and shown once resolved
+  protected void showRawVariables() {
+    if (deferredVariables != null) {
+      resolveLater(deferredVariables.get());
+      deferredVariables = null;
+    }
+    onVariablesDereferenced(getRawVariables());
+  }
+
+  private void expandRawVariable(String name) {
+    Map<String, Object> variables = getRawVariables();
+    if (truncatedValueExpander == null || !variables.containsKey(name)) {
+      return;
+    }
+    resolveLater(expandTruncatedValues(variables.get(name)).thenApply(expanded -> Collections.singletonMap(name, expanded)));
+  }
+
+  private CompletableFuture<Object> expandTruncatedValues(Object value) {
+    if (value instanceof TruncatedValue) {
+      return truncatedValueExpander.apply((TruncatedValue) value);
+    } else if (value instanceof Object[]) {
+      Object[] elements = ((Object[]) value).clone();
+      CompletableFuture<?>[] expansions = new CompletableFuture<?>[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        int index = i;
+        expansions[i] = expandTruncatedValues(elements[i]).thenAccept(expanded -> elements[index] = expanded);
+      }
+      return CompletableFuture.allOf(expansions).thenApply(unused -> elements);
+    }
+    return CompletableFuture.completedFuture(value);
+  }
+
+  private void resolveLater(CompletableFuture<Map<String, Object>> resolution) {
+    Map<String, Object> resolved = resolvedVariables;
+    resolution.thenAccept(variables -> {
+      resolved.putAll(variables);
+      resolvedVariablesPipeline.publish(resolved);
+    });
+  }
+
+  // Runs on the EDT
+  private void onVariablesResolved(Map<String, Object> resolved) {
+    if (resolved == resolvedVariables && isRawViewVisible()) {
+      onVariablesDereferenced(getRawVariables());
+    }
+  }
+
+  private Map<String, Object> getRawVariables() {
+    Map<String, Object> variables = new HashMap<>(dereferencedVariables);
+    synchronized (resolvedVariables) {
+      variables.putAll(resolvedVariables);
+    }
+    return variables;
+  }
+
   protected void onVariablesDereferenced(Map<String, Object> dereferencedVariables) {
     StringBuilder rawNameBuilder = new StringBuilder();
     StringBuilder rawValueBuilder = new StringBuilder();
@@ -55,13 +186,17 @@ public abstract class DebuggerWatchView extends JPanel {
     List<Map.Entry<String, Object>> variables = new ArrayList<>(dereferencedVariables.entrySet());
     variables.sort(Map.Entry.comparingByKey());
 
+    rawWatchedNames.clear();
     for (Map.Entry<String, Object> entry : variables) {
+      rawWatchedNames.add(entry.getKey());
       rawNameBuilder.append(entry.getKey()).append("\n");
       Object value = entry.getValue();
       if (value == null) {
         value = "null";
-      } else if (value.getClass().isArray()) {
+      } else if (value instanceof Object[]) {
         value = Arrays.deepToString((Object[]) value);
+      } else if (value.getClass().isArray()) {
+        value = primitiveArrayToString(value);
       }
       rawValueBuilder.append(value).append("\n");
     }
@@ -85,6 +85,7 @@ public class LineNumberView extends JPanel
     component.getDocument().addDocumentListener(this);
     component.addCaretListener(this);
     component.addPropertyChangeListener("font", this);
+    component.addPropertyChangeListener("document", this);
   }
 
   /**
@@ -362,11 +363,20 @@ public class LineNumberView extends JPanel
   /**
    * Implement PropertyChangeListener interface.
    *
-   * @param evt font change event
+   * @param evt font or document change event
    */
   @Override
   public void propertyChange(PropertyChangeEvent evt) {
-    if (evt.getNewValue() instanceof Font) {
+    if (evt.getNewValue() instanceof Document) {
+      //  A swapped-in document is already laid out by the text component,
+      //  so only the width for its line count needs checking
+      if (evt.getOldValue() instanceof Document) {
+        ((Document) evt.getOldValue()).removeDocumentListener(this);
+      }
+      ((Document) evt.getNewValue()).addDocumentListener(this);
+      setPreferredWidth();
+      repaint();
+    } else if (evt.getNewValue() instanceof Font) {
       if (updateFont) {
         Font newFont = (Font) evt.getNewValue();
         setFont(newFont);
@@ -0,0 +1,35 @@
+package com.swilkins.ScrabbleVisualizer.view;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Hands snapshots from any thread to a single consumer on the EDT. Publishing never
+// blocks, and a snapshot replaced before the EDT gets to it is dropped unseen.
+public class RenderPipeline<T> {
+
+  private final Consumer<T> consumer;
+  private final AtomicReference<T> latest = new AtomicReference<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  public RenderPipeline(Consumer<T> consumer) {
+    this.consumer = consumer;
+  }
+
+  public void publish(T snapshot) {
+    latest.set(snapshot);
+    if (scheduled.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(this::drain);
+    }
+  }
+
+  private void drain() {
+    scheduled.set(false);
+    T snapshot = latest.getAndSet(null);
+    if (snapshot != null) {
+      consumer.accept(snapshot);
+    }
+  }
+
+}